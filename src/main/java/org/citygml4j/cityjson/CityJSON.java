@@ -29,6 +29,8 @@ import org.citygml4j.cityjson.geometry.*;
 import org.citygml4j.cityjson.metadata.MetadataType;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.Collectors;
 
 public class CityJSON implements ExtensibleType {
@@ -45,6 +47,8 @@ public class CityJSON implements ExtensibleType {
     GeometryTemplatesType geometryTemplates;
 
     private transient Map<String, Object> extensionProperties;
+    private transient CityObjectSpatialIndex spatialIndex;
+    private transient ForkJoinPool forkJoinPool;
 
     public String getType() {
         return type;
@@ -107,6 +111,8 @@ public class CityJSON implements ExtensibleType {
             cityObject.setGmlId("UUID_" + UUID.randomUUID().toString());
 
         cityObjects.put(cityObject.getGmlId(), cityObject);
+        if (spatialIndex != null)
+            spatialIndex.insert(cityObject);
     }
 
     @Override
@@ -143,15 +149,33 @@ public class CityJSON implements ExtensibleType {
     }
 
     public void removeCityObject(AbstractCityObjectType cityObject) {
-        cityObjects.remove(cityObject.getGmlId());
+        removeCityObject(cityObject.getGmlId());
     }
 
     public void removeCityObject(String gmlId) {
         cityObjects.remove(gmlId);
+        if (spatialIndex != null)
+            spatialIndex.remove(gmlId);
     }
 
     public void unsetCityObjects() {
         cityObjects.clear();
+        spatialIndex = null;
+    }
+
+    public CityObjectSpatialIndex getSpatialIndex() {
+        if (spatialIndex == null)
+            spatialIndex = new CityObjectSpatialIndex(this);
+
+        return spatialIndex;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool != null ? forkJoinPool : ForkJoinPool.commonPool();
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
     }
 
     public void addVertex(List<Double> vertex) {
@@ -159,17 +183,28 @@ public class CityJSON implements ExtensibleType {
             vertices.addVertex(vertex);
     }
 
+    public void addVertex(double x, double y, double z) {
+        vertices.addVertex(x, y, z);
+    }
+
     public List<List<Double>> getVertices() {
         return vertices.getVertices();
     }
 
+    public VerticesList getVerticesList() {
+        return vertices;
+    }
+
     public void setVertices(List<List<Double>> vertices) {
-        if (vertices != null)
+        if (vertices != null) {
             this.vertices.setVertices(vertices);
+            spatialIndex = null;
+        }
     }
 
     public void unsetVertices() {
         vertices.clear();
+        spatialIndex = null;
     }
 
     public boolean isSetTransform() {
@@ -182,10 +217,28 @@ public class CityJSON implements ExtensibleType {
 
     public void setTransform(TransformType transform) {
         this.transform = transform;
+        spatialIndex = null;
+        if (vertices != null)
+            vertices.setTransform(transform);
     }
 
     public void unsetTransform() {
         transform = null;
+        spatialIndex = null;
+        if (vertices != null)
+            vertices.setTransform(null);
+    }
+
+    public void convertVerticesToWorld() {
+        vertices.setTransform(transform);
+        vertices.convertToWorld();
+        transform = null;
+    }
+
+    public void convertVerticesFromWorld(TransformType transform) {
+        vertices.setTransform(this.transform);
+        vertices.convertFromWorld(transform);
+        this.transform = transform;
     }
 
     public boolean isSetAppearance() {
@@ -253,11 +306,11 @@ public class CityJSON implements ExtensibleType {
                 Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
                 -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
 
-        for (List<Double> vertex : vertices.getVertices()) {
-            if (vertex.size() > 2) {
-                double x = vertex.get(0);
-                double y = vertex.get(1);
-                double z = vertex.get(2);
+        for (int i = 0; i < vertices.size(); i++) {
+            if (!vertices.isNullVertex(i)) {
+                double x = vertices.getX(i);
+                double y = vertices.getY(i);
+                double z = vertices.getZ(i);
 
                 if (x < bbox[0]) bbox[0] = x;
                 if (y < bbox[1]) bbox[1] = y;
@@ -303,36 +356,83 @@ public class CityJSON implements ExtensibleType {
     }
 
     public void removeDuplicateVertices() {
-        Map<String, Integer> indexes = new HashMap<>();
-        Map<Integer, Integer> indexMap = new HashMap<>();
-        int oldIndex = 0, newIndex = 0;
-
-        for (Iterator<List<Double>> iter = getVertices().iterator(); iter.hasNext(); ) {
-            List<Double> vertex = iter.next();
-            String key = vertex.get(0).intValue() + " " + vertex.get(1).intValue() + " " + vertex.get(2).intValue();
-
-            Integer index = indexes.get(key);
-            if (index == null) {
-                indexes.put(key, newIndex);
-                indexMap.put(oldIndex, newIndex);
-                newIndex++;
-            } else {
-                iter.remove();
-                indexMap.put(oldIndex, index);
-            }
+        removeDuplicateVertices(0);
+    }
+
+    public void removeDuplicateVertices(double tolerance) {
+        loadCityObjects();
+        int size = vertices.size();
+        int[] remap = vertices.removeDuplicates(tolerance);
+        if (vertices.size() != size)
+            updateIndexes(remap);
 
-            oldIndex++;
+        if (geometryTemplates != null) {
+            VerticesList templatesVertices = new VerticesList(geometryTemplates.getTemplatesVertices());
+            size = templatesVertices.size();
+            remap = templatesVertices.removeDuplicates(tolerance);
+            if (templatesVertices.size() != size)
+                updateTemplatesIndexes(templatesVertices, remap);
         }
+    }
 
-        indexes.clear();
-        if (getVertices().size() != indexMap.size()) {
-            for (AbstractCityObjectType cityObject : getCityObjects()) {
-                for (AbstractGeometryType geometry : cityObject.getGeometry())
-                    geometry.updateIndexes(indexMap);
-            }
+    public void compactVertices() {
+        loadCityObjects();
+        BitSet indexes = new BitSet(vertices.size());
+        for (AbstractCityObjectType cityObject : getCityObjects())
+            cityObject.forEachVertexIndex(index -> markIndex(indexes, index));
+
+        int size = vertices.size();
+        int[] remap = vertices.retainVertices(indexes);
+        if (vertices.size() != size)
+            updateIndexes(remap);
+
+        if (geometryTemplates != null) {
+            VerticesList templatesVertices = new VerticesList(geometryTemplates.getTemplatesVertices());
+            BitSet templatesIndexes = new BitSet(templatesVertices.size());
+            for (AbstractGeometryObjectType template : geometryTemplates.getTemplates())
+                template.forEachVertexIndex(index -> markIndex(templatesIndexes, index));
+
+            size = templatesVertices.size();
+            remap = templatesVertices.retainVertices(templatesIndexes);
+            if (templatesVertices.size() != size)
+                updateTemplatesIndexes(templatesVertices, remap);
+        }
+    }
+
+    private void loadCityObjects() {
+        // lazily parsed city objects would otherwise be read with their original vertex indexes
+        if (cityObjects instanceof LazyCityObjects)
+            ((LazyCityObjects) cityObjects).loadAll();
+    }
+
+    private void markIndex(BitSet indexes, int index) {
+        if (index >= 0)
+            indexes.set(index);
+    }
+
+    private void updateIndexes(int[] remap) {
+        IntUnaryOperator operator = index -> index >= 0 && index < remap.length ? remap[index] : index;
+        List<AbstractCityObjectType> cityObjects = new ArrayList<>(getCityObjects());
+
+        // run the parallel stream on the configured pool instead of the common pool
+        getForkJoinPool().submit(() -> cityObjects.parallelStream()
+                .forEach(cityObject -> cityObject.updateIndexes(operator))).join();
+    }
+
+    private void updateTemplatesIndexes(VerticesList templatesVertices, int[] remap) {
+        IntUnaryOperator operator = index -> index >= 0 && index < remap.length ? remap[index] : index;
+        for (AbstractGeometryObjectType template : geometryTemplates.getTemplates())
+            template.updateIndexes(operator);
+
+        List<List<Double>> vertices = new ArrayList<>(templatesVertices.size());
+        for (int i = 0; i < templatesVertices.size(); i++) {
+            if (templatesVertices.isNullVertex(i))
+                vertices.add(null);
+            else
+                vertices.add(new ArrayList<>(Arrays.asList(templatesVertices.getX(i), templatesVertices.getY(i), templatesVertices.getZ(i))));
         }
 
-        indexMap.clear();
+        geometryTemplates.setTemplatesVertices(vertices);
     }
 
 }
@@ -22,10 +22,7 @@
 package org.citygml4j.cityjson;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.TypeAdapter;
-import com.google.gson.internal.Streams;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
@@ -33,6 +30,8 @@ import com.google.gson.stream.JsonWriter;
 import org.citygml4j.cityjson.appearance.AppearanceType;
 import org.citygml4j.cityjson.extension.ExtensionType;
 import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.feature.CityObjectLoDFilter;
+import org.citygml4j.cityjson.feature.CityObjectSpatialFilter;
 import org.citygml4j.cityjson.geometry.GeometryTemplatesType;
 import org.citygml4j.cityjson.geometry.TransformType;
 import org.citygml4j.cityjson.geometry.VerticesList;
@@ -41,139 +40,270 @@ import org.citygml4j.cityjson.util.PropertyHelper;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class CityJSONAdapter extends TypeAdapter<CityJSON> {
     private final Gson gson;
-    private final CityJSONRegistry registry = CityJSONRegistry.getInstance();
-    private final PropertyHelper propertyHelper = new PropertyHelper();
+    private final CityJSONRegistry globalRegistry = CityJSONRegistry.getInstance();
+    private final Set<String> predefinedProperties = new PropertyHelper().getPredefinedProperties(CityJSON.class);
 
-    private List<String> predefinedProperties;
+    private CityObjectSpatialFilter spatialFilter;
+    private CityObjectLoDFilter lodFilter;
+    private CityJSONProjection projection;
+    private CityJSONRegistrySnapshot registry;
+    private PropertyHelper propertyHelper = new PropertyHelper();
+    private ForkJoinPool forkJoinPool;
 
     public CityJSONAdapter(Gson gson) {
         this.gson = gson;
     }
 
-    @Override
-    public void write(JsonWriter out, CityJSON value) throws IOException {
-        if (value != null) {
-            out.beginObject();
+    public CityJSONAdapter withSpatialFilter(CityObjectSpatialFilter spatialFilter) {
+        this.spatialFilter = spatialFilter;
+        return this;
+    }
 
-            out.name("type");
-            out.value(value.getType());
+    public CityJSONAdapter withLoDFilter(CityObjectLoDFilter lodFilter) {
+        this.lodFilter = lodFilter;
+        return this;
+    }
 
-            out.name("version");
-            out.value(value.getVersion());
+    public CityJSONAdapter withProjection(CityJSONProjection projection) {
+        this.projection = projection;
+        return this;
+    }
 
-            if (value.metadata != null) {
-                out.name("metadata");
-                Streams.write(gson.toJsonTree(value.metadata, MetadataType.class), out);
-            }
+    public CityJSONAdapter withRegistry(CityJSONRegistrySnapshot registry) {
+        this.registry = registry;
+        return this;
+    }
 
-            if (value.extensions != null) {
-                out.name("extensions");
-                Streams.write(gson.toJsonTree(value.extensions, new TypeToken<Map<String, ExtensionType>>() {
-                }.getType()), out);
-            }
+    public CityJSONAdapter withPropertyHelper(PropertyHelper propertyHelper) {
+        if (propertyHelper != null)
+            this.propertyHelper = propertyHelper;
 
-            // serialize extension properties
-            if (value.isSetExtensionProperties()) {
-                JsonObject properties = gson.toJsonTree(value.getExtensionProperties()).getAsJsonObject();
-                for (Map.Entry<String, JsonElement> entry : properties.entrySet()) {
-                    out.name(entry.getKey());
-                    Streams.write(entry.getValue(), out);
-                }
-            }
+        return this;
+    }
+
+    public CityJSONAdapter withForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        return this;
+    }
+
+    static CityJSONAdapter getInstance(Gson gson) {
+        // prefer the adapter of the factory to apply its filters and projection
+        TypeAdapter<CityJSON> adapter = gson.getAdapter(CityJSON.class);
+        return adapter instanceof CityJSONAdapter ? (CityJSONAdapter) adapter : new CityJSONAdapter(gson);
+    }
+
+    @Override
+    public void write(JsonWriter out, CityJSON value) throws IOException {
+        if (value != null) {
+            out.beginObject();
+            writeHeader(out, value);
 
             if (value.cityObjects != null) {
                 out.name("CityObjects");
-                Streams.write(gson.toJsonTree(value.cityObjects, new TypeToken<Map<String, AbstractCityObjectType>>() {
-                }.getType()), out);
+                gson.getAdapter(new TypeToken<Map<String, AbstractCityObjectType>>() {
+                }).write(out, value.cityObjects);
             }
 
             if (value.vertices != null) {
                 out.name("vertices");
-                Streams.write(gson.toJsonTree(value.vertices, VerticesList.class), out);
+                gson.getAdapter(VerticesList.class).write(out, value.vertices);
             }
 
-            if (value.transform != null) {
-                out.name("transform");
-                Streams.write(gson.toJsonTree(value.transform, TransformType.class), out);
-            }
+            writeGlobalProperties(out, value);
+            out.endObject();
+        } else
+            out.nullValue();
+    }
 
-            if (value.appearance != null) {
-                out.name("appearance");
-                Streams.write(gson.toJsonTree(value.appearance, AppearanceType.class), out);
-            }
+    void writeHeader(JsonWriter out, CityJSON value) throws IOException {
+        out.name("type");
+        out.value(value.getType());
+
+        out.name("version");
+        out.value(value.getVersion());
 
-            if (value.geometryTemplates != null) {
-                out.name("geometry-templates");
-                Streams.write(gson.toJsonTree(value.geometryTemplates, GeometryTemplatesType.class), out);
+        if (value.metadata != null) {
+            out.name("metadata");
+            gson.getAdapter(MetadataType.class).write(out, value.metadata);
+        }
+
+        if (value.extensions != null) {
+            out.name("extensions");
+            gson.getAdapter(new TypeToken<Map<String, ExtensionType>>() {
+            }).write(out, value.extensions);
+        }
+
+        // serialize extension properties
+        if (value.isSetExtensionProperties()) {
+            TypeAdapter<Object> adapter = gson.getAdapter(Object.class);
+            for (Map.Entry<String, Object> entry : value.getExtensionProperties().entrySet()) {
+                out.name(entry.getKey());
+                adapter.write(out, entry.getValue());
             }
+        }
+    }
 
-            out.endObject();
-        } else
-            out.nullValue();
+    void writeGlobalProperties(JsonWriter out, CityJSON value) throws IOException {
+        if (value.transform != null) {
+            out.name("transform");
+            gson.getAdapter(TransformType.class).write(out, value.transform);
+        }
+
+        if (value.appearance != null) {
+            out.name("appearance");
+            gson.getAdapter(AppearanceType.class).write(out, value.appearance);
+        }
+
+        if (value.geometryTemplates != null) {
+            out.name("geometry-templates");
+            gson.getAdapter(GeometryTemplatesType.class).write(out, value.geometryTemplates);
+        }
     }
 
     @Override
     public CityJSON read(JsonReader in) throws IOException {
         CityJSON cityJSON = null;
 
-        if (predefinedProperties == null)
-            predefinedProperties = propertyHelper.getDeclaredProperties(CityJSON.class);
-
         if (in.peek() != JsonToken.NULL) {
-            cityJSON = new CityJSON();
+            cityJSON = newCityJSON();
             in.beginObject();
 
-            while (in.hasNext()) {
-                String key = in.nextName();
-                switch (key) {
-                    case "metadata":
-                        cityJSON.metadata = gson.fromJson(in, MetadataType.class);
-                        break;
-                    case "extensions":
-                        cityJSON.extensions = gson.fromJson(in, new TypeToken<Map<String, ExtensionType>>() {
-                        }.getType());
-                        break;
-                    case "CityObjects":
-                        cityJSON.cityObjects = gson.fromJson(in, new TypeToken<Map<String, AbstractCityObjectType>>() {
-                        }.getType());
-                        break;
-                    case "vertices":
-                        cityJSON.vertices = gson.fromJson(in, VerticesList.class);
-                        break;
-                    case "transform":
-                        cityJSON.transform = gson.fromJson(in, TransformType.class);
-                        break;
-                    case "appearance":
-                        cityJSON.appearance = gson.fromJson(in, AppearanceType.class);
-                        break;
-                    case "geometry-templates":
-                        cityJSON.geometryTemplates = gson.fromJson(in, GeometryTemplatesType.class);
-                        break;
-                    default:
-                        // deserialize extension properties
-                        if (!predefinedProperties.contains(key)) {
-                            Type extensionAttributeType = registry.getExtensionPropertyClass(key, cityJSON);
-                            Object value = extensionAttributeType != null ?
-                                    gson.fromJson(in, extensionAttributeType) :
-                                    propertyHelper.deserialize(Streams.parse(in));
-
-                            if (value != null)
-                                cityJSON.addExtensionProperty(key, value);
-                        } else
-                            in.skipValue();
-                }
-            }
+            while (in.hasNext())
+                readProperty(in.nextName(), in, cityJSON);
 
             in.endObject();
+            applyFilters(cityJSON);
         }
 
         return cityJSON;
     }
 
+    CityJSON newCityJSON() {
+        CityJSON cityJSON = new CityJSON();
+        cityJSON.setForkJoinPool(forkJoinPool);
+        return cityJSON;
+    }
+
+    void applyFilters(CityJSON cityJSON) {
+        if (spatialFilter != null && cityJSON.cityObjects != null)
+            applySpatialFilter(cityJSON);
+
+        // drop vertices that were only referenced by filtered city objects or geometries
+        if ((spatialFilter != null && spatialFilter.isTrimVertices())
+                || (lodFilter != null && lodFilter.isTrimVertices()))
+            cityJSON.compactVertices();
+    }
+
+    private void applySpatialFilter(CityJSON cityJSON) {
+
+        // city objects with a geographical extent have already been filtered while parsing
+        VerticesList vertices = cityJSON.vertices != null ? cityJSON.vertices : new VerticesList();
+        Set<String> withoutExtent = new HashSet<>();
+        Iterator<AbstractCityObjectType> iterator = cityJSON.cityObjects.values().iterator();
+        while (iterator.hasNext()) {
+            AbstractCityObjectType cityObject = iterator.next();
+            if (!cityObject.isSetGeographicalExtent()) {
+                double[] bbox = cityObject.calcBoundingBox(vertices);
+                if (bbox == null)
+                    withoutExtent.add(cityObject.getGmlId());
+                else if (!spatialFilter.accept(bbox))
+                    iterator.remove();
+            }
+        }
+
+        // city objects that cannot be located are kept, whereas city objects that are only located by their
+        // children are kept if one of their children is kept
+        Set<String> retained = new HashSet<>();
+        for (String gmlId : withoutExtent) {
+            if (!cityJSON.cityObjects.get(gmlId).isSetChildren())
+                retained.add(gmlId);
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (String gmlId : withoutExtent) {
+                AbstractCityObjectType cityObject = cityJSON.cityObjects.get(gmlId);
+                if (!retained.contains(gmlId) && cityObject.isSetChildren()) {
+                    for (String child : cityObject.getChildren()) {
+                        if (cityJSON.cityObjects.containsKey(child)
+                                && (!withoutExtent.contains(child) || retained.contains(child))) {
+                            retained.add(gmlId);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        withoutExtent.removeAll(retained);
+        cityJSON.cityObjects.keySet().removeAll(withoutExtent);
+    }
+
+    private CityJSONRegistrySnapshot getRegistry() {
+        // follow the global registry unless a snapshot has been bound
+        return registry != null ? registry : globalRegistry.snapshot();
+    }
 
+    boolean isSkipped(String key) {
+        return projection != null && projection.isSkipRootMember(key);
+    }
+
+    void readProperty(String key, JsonReader in, CityJSON cityJSON) throws IOException {
+        if (isSkipped(key)) {
+            in.skipValue();
+            return;
+        }
+
+        switch (key) {
+            case "metadata":
+                cityJSON.metadata = gson.fromJson(in, MetadataType.class);
+                break;
+            case "extensions":
+                cityJSON.extensions = gson.fromJson(in, new TypeToken<Map<String, ExtensionType>>() {
+                }.getType());
+                break;
+            case "CityObjects":
+                cityJSON.cityObjects = gson.fromJson(in, new TypeToken<Map<String, AbstractCityObjectType>>() {
+                }.getType());
+                break;
+            case "vertices":
+                cityJSON.vertices = gson.fromJson(in, VerticesList.class);
+                if (cityJSON.vertices != null)
+                    cityJSON.vertices.setTransform(cityJSON.transform);
+                break;
+            case "transform":
+                cityJSON.transform = gson.fromJson(in, TransformType.class);
+                if (cityJSON.vertices != null)
+                    cityJSON.vertices.setTransform(cityJSON.transform);
+                break;
+            case "appearance":
+                cityJSON.appearance = gson.fromJson(in, AppearanceType.class);
+                break;
+            case "geometry-templates":
+                cityJSON.geometryTemplates = gson.fromJson(in, GeometryTemplatesType.class);
+                break;
+            default:
+                // deserialize extension properties
+                if (!predefinedProperties.contains(key)) {
+                    Type extensionAttributeType = getRegistry().getExtensionPropertyClass(key, cityJSON);
+                    Object value = extensionAttributeType != null ?
+                            gson.fromJson(in, extensionAttributeType) :
+                            propertyHelper.deserialize(in);
+
+                    if (value != null)
+                        cityJSON.addExtensionProperty(key, value);
+                } else
+                    in.skipValue();
+        }
+    }
 }
@@ -0,0 +1,243 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import org.citygml4j.cityjson.appearance.AbstractMaterialObject;
+import org.citygml4j.cityjson.appearance.AbstractTextureObject;
+import org.citygml4j.cityjson.appearance.AppearanceType;
+import org.citygml4j.cityjson.appearance.SolidCollectionMaterialObject;
+import org.citygml4j.cityjson.appearance.SolidMaterialObject;
+import org.citygml4j.cityjson.appearance.SurfaceCollectionMaterialObject;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.geometry.AbstractGeometryType;
+import org.citygml4j.cityjson.geometry.GeometryWithAppearance;
+import org.citygml4j.cityjson.geometry.VerticesList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CityJSONFeature {
+    private final String type = "CityJSONFeature";
+    String id;
+    Map<String, AbstractCityObjectType> cityObjects = new LinkedHashMap<>();
+    VerticesList vertices = new VerticesList();
+    AppearanceType appearance;
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isSetId() {
+        return id != null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public AbstractCityObjectType getMainCityObject() {
+        return id != null ? cityObjects.get(id) : null;
+    }
+
+    public boolean hasCityObjects() {
+        return !cityObjects.isEmpty();
+    }
+
+    public void addCityObject(AbstractCityObjectType cityObject) {
+        if (cityObject.isSetGmlId())
+            cityObjects.put(cityObject.getGmlId(), cityObject);
+    }
+
+    public AbstractCityObjectType getCityObject(String gmlId) {
+        return cityObjects.get(gmlId);
+    }
+
+    public Collection<AbstractCityObjectType> getCityObjects() {
+        return cityObjects.values();
+    }
+
+    public void unsetCityObjects() {
+        cityObjects.clear();
+    }
+
+    public List<List<Double>> getVertices() {
+        return vertices.getVertices();
+    }
+
+    public VerticesList getVerticesList() {
+        return vertices;
+    }
+
+    public void setVertices(List<List<Double>> vertices) {
+        if (vertices != null)
+            this.vertices.setVertices(vertices);
+    }
+
+    public void unsetVertices() {
+        vertices.clear();
+    }
+
+    public boolean isSetAppearance() {
+        return appearance != null;
+    }
+
+    public AppearanceType getAppearance() {
+        return appearance;
+    }
+
+    public void setAppearance(AppearanceType appearance) {
+        this.appearance = appearance;
+    }
+
+    public void unsetAppearance() {
+        appearance = null;
+    }
+
+    public void appendTo(CityJSON cityJSON) {
+        // shift the local vertex indices behind the vertices of the target
+        VerticesList target = cityJSON.getVerticesList();
+        int offset = target.size();
+        target.ensureCapacity(offset + vertices.size());
+
+        for (int i = 0; i < vertices.size(); i++) {
+            if (vertices.isNullVertex(i))
+                target.addVertex(null);
+            else if (vertices.isQuantized())
+                target.addVertex(vertices.getQuantizedX(i), vertices.getQuantizedY(i), vertices.getQuantizedZ(i));
+            else
+                target.addVertex(vertices.getX(i), vertices.getY(i), vertices.getZ(i));
+        }
+
+        if (appearance != null)
+            appendAppearance(cityJSON);
+
+        for (AbstractCityObjectType cityObject : cityObjects.values()) {
+            if (offset > 0)
+                cityObject.updateIndexes(index -> index + offset);
+
+            cityJSON.addCityObject(cityObject);
+        }
+
+        cityObjects.clear();
+        vertices.clear();
+    }
+
+    private void appendAppearance(CityJSON cityJSON) {
+        // shift the material and texture references behind the appearance of the target
+        AppearanceType target = cityJSON.getAppearance();
+        if (target == null) {
+            target = new AppearanceType();
+            cityJSON.setAppearance(target);
+        }
+
+        int materialOffset = target.isSetMaterials() ? target.getMaterials().size() : 0;
+        int textureOffset = target.isSetTextures() ? target.getTextures().size() : 0;
+        int textureVertexOffset = target.isSetTextureVertices() ? target.getTextureVertices().size() : 0;
+
+        if (appearance.isSetMaterials())
+            appearance.getMaterials().forEach(target::addMaterial);
+
+        if (appearance.isSetTextures())
+            appearance.getTextures().forEach(target::addTexture);
+
+        if (appearance.isSetTextureVertices()) {
+            if (!target.isSetTextureVertices())
+                target.setTextureVertices(new ArrayList<>());
+
+            target.getTextureVertices().addAll(appearance.getTextureVertices());
+        }
+
+        if (!target.isSetDefaultMaterialTheme())
+            target.setDefaultMaterialTheme(appearance.getDefaultMaterialTheme());
+
+        if (!target.isSetDefaultTextureTheme())
+            target.setDefaultTextureTheme(appearance.getDefaultTextureTheme());
+
+        if (materialOffset > 0 || textureOffset > 0 || textureVertexOffset > 0) {
+            for (AbstractCityObjectType cityObject : cityObjects.values()) {
+                for (AbstractGeometryType geometry : cityObject.getGeometry()) {
+                    if (!(geometry instanceof GeometryWithAppearance))
+                        continue;
+
+                    GeometryWithAppearance<?, ?> withAppearance = (GeometryWithAppearance<?, ?>) geometry;
+                    if (withAppearance.isSetMaterial()) {
+                        for (AbstractMaterialObject material : withAppearance.getMaterial())
+                            shiftMaterial(material, materialOffset);
+                    }
+
+                    if (withAppearance.isSetTexture()) {
+                        for (AbstractTextureObject texture : withAppearance.getTexture())
+                            shiftTextureValues(texture.flatValues(), textureOffset, textureVertexOffset);
+                    }
+                }
+            }
+        }
+
+        appearance = null;
+    }
+
+    private void shiftMaterial(AbstractMaterialObject material, int offset) {
+        if (material.isSetValue())
+            material.setValue(material.getValue() + offset);
+
+        if (material instanceof SurfaceCollectionMaterialObject)
+            shiftMaterialValues(((SurfaceCollectionMaterialObject) material).getValues(), offset);
+        else if (material instanceof SolidMaterialObject)
+            shiftMaterialValues(((SolidMaterialObject) material).getValues(), offset);
+        else if (material instanceof SolidCollectionMaterialObject)
+            shiftMaterialValues(((SolidCollectionMaterialObject) material).getValues(), offset);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void shiftMaterialValues(List<?> values, int offset) {
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value instanceof Integer)
+                    ((List<Object>) values).set(i, (Integer) value + offset);
+                else if (value instanceof List)
+                    shiftMaterialValues((List<?>) value, offset);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void shiftTextureValues(List<?> values, int textureOffset, int textureVertexOffset) {
+        // the first value of a ring references the texture, all others reference texture vertices
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value instanceof Integer)
+                    ((List<Object>) values).set(i, (Integer) value + (i == 0 ? textureOffset : textureVertexOffset));
+                else if (value instanceof List)
+                    shiftTextureValues((List<?>) value, textureOffset, textureVertexOffset);
+            }
+        }
+    }
+}
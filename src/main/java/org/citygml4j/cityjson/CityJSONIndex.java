@@ -0,0 +1,670 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.geometry.VerticesList;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class CityJSONIndex {
+    private static final int MAGIC = 0x434a4958;
+    private static final int VERSION = 2;
+    private static final int NODE_CAPACITY = 16;
+
+    private final Map<String, long[]> properties = new LinkedHashMap<>();
+    private String[] gmlIds = new String[64];
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+    private String[] types;
+    private double[] bounds;
+    private int[] byGmlId;
+    private int[] tree;
+    private double[] treeBounds;
+    private int[] levelEnds;
+    private int size;
+
+    CityJSONIndex() {
+    }
+
+    public static CityJSONIndex scan(CityJSONInput input) {
+        CityJSONIndex index = new CityJSONIndex();
+        new Scanner(input).scan(index);
+        index.removeDuplicates();
+        index.byGmlId = index.sortByGmlId();
+        return index;
+    }
+
+    public static CityJSONIndex build(CityJSONInput input) {
+        CityJSONIndex index = scan(input);
+        index.computeBounds(input);
+        return index;
+    }
+
+    public static CityJSONIndex load(Path file, CityJSONInput input) throws IOException {
+        long fileSize = Files.size(file);
+        try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION)
+                throw new IOException("The file " + file + " is not a supported CityJSON index.");
+
+            if (stream.readLong() != input.size()
+                    || stream.readLong() != Files.getLastModifiedTime(input.getFile()).toMillis())
+                throw new IOException("The index " + file + " does not match " + input.getFile() + ".");
+
+            // counts are checked against the file size before allocating arrays
+            CityJSONIndex index = new CityJSONIndex();
+            for (int i = readCount(stream, fileSize / 20); i > 0; i--)
+                index.addProperty(readString(stream, fileSize), readRange(stream, input), readRange(stream, input));
+
+            String[] typeNames = new String[readCount(stream, fileSize / 4)];
+            for (int i = 0; i < typeNames.length; i++)
+                typeNames[i] = readString(stream, fileSize);
+
+            int size = readCount(stream, fileSize / 20);
+            boolean hasBounds = stream.readBoolean();
+            index.size = size;
+            index.gmlIds = new String[size];
+            index.offsets = new long[size];
+            index.lengths = new int[size];
+            if (hasBounds) {
+                index.types = new String[size];
+                index.bounds = new double[size * 6];
+            }
+
+            for (int i = 0; i < size; i++) {
+                index.gmlIds[i] = readString(stream, fileSize);
+                index.offsets[i] = readRange(stream, input);
+                index.lengths[i] = readCount(stream, input.size() - index.offsets[i]);
+                if (hasBounds) {
+                    int type = stream.readInt();
+                    index.types[i] = type != -1 ? typeNames[type] : null;
+                    for (int j = 0; j < 6; j++)
+                        index.bounds[i * 6 + j] = stream.readDouble();
+                }
+            }
+
+            index.byGmlId = readPermutation(stream, size);
+            return index;
+        } catch (EOFException | IndexOutOfBoundsException e) {
+            throw new IOException("The CityJSON index " + file + " is corrupt.", e);
+        }
+    }
+
+    public void save(Path file, CityJSONInput input) throws IOException {
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeLong(input.size());
+            stream.writeLong(Files.getLastModifiedTime(input.getFile()).toMillis());
+
+            stream.writeInt(properties.size());
+            for (Map.Entry<String, long[]> entry : properties.entrySet()) {
+                writeString(stream, entry.getKey());
+                stream.writeLong(entry.getValue()[0]);
+                stream.writeLong(entry.getValue()[1]);
+            }
+
+            Map<String, Integer> typeNames = new LinkedHashMap<>();
+            if (types != null) {
+                for (int i = 0; i < size; i++) {
+                    if (types[i] != null)
+                        typeNames.putIfAbsent(types[i], typeNames.size());
+                }
+            }
+
+            stream.writeInt(typeNames.size());
+            for (String typeName : typeNames.keySet())
+                writeString(stream, typeName);
+
+            stream.writeInt(size);
+            stream.writeBoolean(hasBoundingBoxes());
+            for (int i = 0; i < size; i++) {
+                writeString(stream, gmlIds[i]);
+                stream.writeLong(offsets[i]);
+                stream.writeInt(lengths[i]);
+                if (hasBoundingBoxes()) {
+                    stream.writeInt(types[i] != null ? typeNames.get(types[i]) : -1);
+                    for (int j = 0; j < 6; j++)
+                        stream.writeDouble(bounds[i * 6 + j]);
+                }
+            }
+
+            writePermutation(stream, byGmlId);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int indexOf(String gmlId) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = gmlIds[byGmlId[mid]].compareTo(gmlId);
+            if (result < 0)
+                low = mid + 1;
+            else if (result > 0)
+                high = mid - 1;
+            else
+                return byGmlId[mid];
+        }
+
+        return -1;
+    }
+
+    public boolean contains(String gmlId) {
+        return indexOf(gmlId) != -1;
+    }
+
+    public String getGmlId(int index) {
+        return gmlIds[checkIndex(index)];
+    }
+
+    public long getOffset(int index) {
+        return offsets[checkIndex(index)];
+    }
+
+    public int getLength(int index) {
+        return lengths[checkIndex(index)];
+    }
+
+    public boolean hasBoundingBoxes() {
+        return bounds != null;
+    }
+
+    public String getType(int index) {
+        return types != null ? types[checkIndex(index)] : null;
+    }
+
+    public double[] getBoundingBox(int index) {
+        if (bounds != null && !Double.isNaN(bounds[checkIndex(index) * 6]))
+            return Arrays.copyOfRange(bounds, index * 6, index * 6 + 6);
+
+        return null;
+    }
+
+    public int[] query(double minX, double minY, double maxX, double maxY) {
+        if (bounds == null)
+            throw new IllegalStateException("The index does not provide bounding boxes.");
+
+        buildTree();
+        if (tree.length == 0)
+            return new int[0];
+
+        // depth-first search starting at the root node
+        IntStream.Builder result = IntStream.builder();
+        double[] window = {minX, minY, maxX, maxY};
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = tree.length - 1;
+        stack[top++] = levelEnds.length - 1;
+
+        while (top > 0) {
+            int level = stack[--top];
+            int node = stack[--top];
+            int start = tree[node];
+            int end = Math.min(start + NODE_CAPACITY, levelEnds[level - 1]);
+
+            for (int child = start; child < end; child++) {
+                if (!intersects(child, window))
+                    continue;
+
+                if (level == 1)
+                    result.add(tree[child]);
+                else {
+                    if (top + 2 > stack.length)
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+
+                    stack[top++] = child;
+                    stack[top++] = level - 1;
+                }
+            }
+        }
+
+        return result.build().sorted().toArray();
+    }
+
+    public Set<String> getPropertyNames() {
+        return Collections.unmodifiableSet(properties.keySet());
+    }
+
+    public long getPropertyOffset(String name) {
+        long[] range = properties.get(name);
+        return range != null ? range[0] : -1;
+    }
+
+    public long getPropertyLength(String name) {
+        long[] range = properties.get(name);
+        return range != null ? range[1] - range[0] : -1;
+    }
+
+    public long getVerticesOffset() {
+        return getPropertyOffset("vertices");
+    }
+
+    void addProperty(String name, long start, long end) {
+        properties.put(name, new long[]{start, end});
+    }
+
+    void addCityObject(String gmlId, long start, long end) {
+        if (end - start > Integer.MAX_VALUE)
+            throw new JsonSyntaxException("The city object '" + gmlId + "' exceeds the maximum size of 2 GB.");
+
+        if (size == gmlIds.length) {
+            int capacity = size + (size >> 1);
+            gmlIds = Arrays.copyOf(gmlIds, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        gmlIds[size] = gmlId;
+        offsets[size] = start;
+        lengths[size] = (int) (end - start);
+        size++;
+    }
+
+    private void removeDuplicates() {
+        int[] sorted = sortByGmlId();
+        boolean[] removed = null;
+
+        for (int i = 1; i < sorted.length; i++) {
+            int first = sorted[i - 1], duplicate = sorted[i];
+            if (gmlIds[first].equals(gmlIds[duplicate])) {
+                // later members override earlier ones like in a regular parse
+                offsets[first] = offsets[duplicate];
+                lengths[first] = lengths[duplicate];
+                sorted[i] = first;
+
+                if (removed == null)
+                    removed = new boolean[size];
+
+                removed[duplicate] = true;
+            }
+        }
+
+        if (removed != null) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed[i]) {
+                    gmlIds[count] = gmlIds[i];
+                    offsets[count] = offsets[i];
+                    lengths[count] = lengths[i];
+                    count++;
+                }
+            }
+
+            size = count;
+        }
+    }
+
+    private int[] sortByGmlId() {
+        return IntStream.range(0, size).boxed()
+                .sorted(Comparator.<Integer, String>comparing(i -> gmlIds[i]).thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private void computeBounds(CityJSONInput input) {
+        // the index must not depend on the filters and projection of the caller
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new CityJSONTypeAdapterFactory().processUnknownExtensions(true))
+                .create();
+
+        CityJSON cityJSON = new CityJSON();
+        CityJSONAdapter adapter = new CityJSONAdapter(gson);
+        for (String name : new String[]{"transform", "vertices"}) {
+            long offset = getPropertyOffset(name);
+            if (offset != -1)
+                read(input, gson, offset, getPropertyLength(name), reader -> adapter.readProperty(name, reader, cityJSON));
+        }
+
+        VerticesList vertices = cityJSON.vertices != null ? cityJSON.vertices : new VerticesList();
+        TypeAdapter<AbstractCityObjectType> cityObjectAdapter = gson.getAdapter(AbstractCityObjectType.class);
+        types = new String[size];
+        bounds = new double[size * 6];
+        Arrays.fill(bounds, Double.NaN);
+
+        for (int i = 0; i < size; i++) {
+            AbstractCityObjectType[] cityObject = new AbstractCityObjectType[1];
+            read(input, gson, offsets[i], lengths[i], reader -> cityObject[0] = cityObjectAdapter.read(reader));
+            if (cityObject[0] == null)
+                continue;
+
+            types[i] = cityObject[0].getType();
+            double[] bbox = cityObject[0].calcBoundingBox(vertices);
+            if (bbox != null)
+                System.arraycopy(bbox, 0, bounds, i * 6, 6);
+        }
+    }
+
+    private synchronized void buildTree() {
+        if (tree != null)
+            return;
+
+        // packed 2D r-tree whose first level holds the city objects in sort-tile-recursive order
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (!Double.isNaN(bounds[i * 6]))
+                items.add(i);
+        }
+
+        int nodeCount = (items.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceSize = (int) Math.ceil(Math.sqrt(nodeCount)) * NODE_CAPACITY;
+        items.sort(Comparator.comparingDouble(i -> bounds[i * 6] + bounds[i * 6 + 3]));
+        for (int i = 0; i < items.size(); i += sliceSize)
+            items.subList(i, Math.min(i + sliceSize, items.size())).sort(Comparator.comparingDouble(j -> bounds[j * 6 + 1] + bounds[j * 6 + 4]));
+
+        List<Integer> ends = new ArrayList<>();
+        int total = items.size();
+        ends.add(total);
+        for (int count = total; count > 1 || ends.size() == 1; ) {
+            count = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            total += count;
+            ends.add(total);
+        }
+
+        int[] tree = new int[total];
+        double[] treeBounds = new double[total * 4];
+        for (int i = 0; i < items.size(); i++) {
+            int item = items.get(i);
+            tree[i] = item;
+            treeBounds[i * 4] = bounds[item * 6];
+            treeBounds[i * 4 + 1] = bounds[item * 6 + 1];
+            treeBounds[i * 4 + 2] = bounds[item * 6 + 3];
+            treeBounds[i * 4 + 3] = bounds[item * 6 + 4];
+        }
+
+        // each node refers to its first child, the children of a node are stored consecutively
+        int node = items.size();
+        for (int level = 1; level < ends.size(); level++) {
+            for (int child = level > 1 ? ends.get(level - 2) : 0; child < ends.get(level - 1); child += NODE_CAPACITY, node++) {
+                tree[node] = child;
+                treeBounds[node * 4] = treeBounds[node * 4 + 1] = Double.POSITIVE_INFINITY;
+                treeBounds[node * 4 + 2] = treeBounds[node * 4 + 3] = Double.NEGATIVE_INFINITY;
+                for (int i = child; i < Math.min(child + NODE_CAPACITY, ends.get(level - 1)); i++) {
+                    treeBounds[node * 4] = Math.min(treeBounds[node * 4], treeBounds[i * 4]);
+                    treeBounds[node * 4 + 1] = Math.min(treeBounds[node * 4 + 1], treeBounds[i * 4 + 1]);
+                    treeBounds[node * 4 + 2] = Math.max(treeBounds[node * 4 + 2], treeBounds[i * 4 + 2]);
+                    treeBounds[node * 4 + 3] = Math.max(treeBounds[node * 4 + 3], treeBounds[i * 4 + 3]);
+                }
+            }
+        }
+
+        this.treeBounds = treeBounds;
+        levelEnds = ends.stream().mapToInt(Integer::intValue).toArray();
+        this.tree = tree;
+    }
+
+    private boolean intersects(int node, double[] window) {
+        int offset = node * 4;
+        return treeBounds[offset] <= window[2] && treeBounds[offset + 2] >= window[0]
+                && treeBounds[offset + 1] <= window[3] && treeBounds[offset + 3] >= window[1];
+    }
+
+    private void read(CityJSONInput input, Gson gson, long offset, long length, ReaderConsumer consumer) {
+        try (JsonReader reader = gson.newJsonReader(input.newReader(offset, offset + length))) {
+            consumer.accept(reader);
+        } catch (IOException e) {
+            throw new JsonIOException("Failed to read " + input.getFile() + " at byte offset " + offset + ".", e);
+        }
+    }
+
+    private static int readCount(DataInputStream stream, long max) throws IOException {
+        int count = stream.readInt();
+        if (count < 0 || count > max)
+            throw new IOException("Invalid count " + count + " in CityJSON index.");
+
+        return count;
+    }
+
+    private static long readRange(DataInputStream stream, CityJSONInput input) throws IOException {
+        long offset = stream.readLong();
+        if (offset < 0 || offset > input.size())
+            throw new IOException("Invalid byte offset " + offset + " in CityJSON index.");
+
+        return offset;
+    }
+
+    private static String readString(DataInputStream stream, long max) throws IOException {
+        byte[] bytes = new byte[readCount(stream, max)];
+        stream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream stream, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    private static int[] readPermutation(DataInputStream stream, int size) throws IOException {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++)
+            permutation[i] = readCount(stream, size - 1);
+
+        return permutation;
+    }
+
+    private static void writePermutation(DataOutputStream stream, int[] permutation) throws IOException {
+        for (int value : permutation)
+            stream.writeInt(value);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        return index;
+    }
+
+    private interface ReaderConsumer {
+        void accept(JsonReader reader) throws IOException;
+    }
+
+    private static class Scanner {
+        private final CityJSONInput input;
+        private final long end;
+        private long position;
+
+        Scanner(CityJSONInput input) {
+            this.input = input;
+            end = input.size();
+        }
+
+        void scan(CityJSONIndex index) {
+            skipByteOrderMark();
+            expect('{');
+
+            if (peek() != '}') {
+                do {
+                    String name = nextString();
+                    expect(':');
+
+                    int c = peek();
+                    long start = position;
+                    if ("CityObjects".equals(name) && c == '{')
+                        scanCityObjects(index);
+                    else
+                        skipValue();
+
+                    index.addProperty(name, start, position);
+                } while (nextSeparator('}'));
+            } else
+                position++;
+        }
+
+        private void scanCityObjects(CityJSONIndex index) {
+            expect('{');
+
+            if (peek() != '}') {
+                do {
+                    String gmlId = nextString();
+                    expect(':');
+
+                    int c = peek();
+                    long start = position;
+                    skipValue();
+
+                    // null members are skipped like in a regular parse
+                    if (c != 'n')
+                        index.addCityObject(gmlId, start, position);
+                } while (nextSeparator('}'));
+            } else
+                position++;
+        }
+
+        private void skipValue() {
+            int c = peek();
+            if (c == '"')
+                skipString();
+            else if (c == '{' || c == '[') {
+                int depth = 0;
+                do {
+                    c = next();
+                    if (c == '"') {
+                        position--;
+                        skipString();
+                    } else if (c == '{' || c == '[')
+                        depth++;
+                    else if (c == '}' || c == ']')
+                        depth--;
+                } while (depth > 0);
+            } else if (c != -1) {
+                // numbers and literals
+                while (position < end) {
+                    c = input.get(position);
+                    if (c == ',' || c == '}' || c == ']' || isWhitespace(c))
+                        break;
+
+                    position++;
+                }
+            } else
+                throw syntaxError("Unexpected end of input");
+        }
+
+        private String nextString() {
+            if (peek() != '"')
+                throw syntaxError("Expected a string");
+
+            long start = position;
+            boolean escaped = skipString();
+            if (!escaped) {
+                long length = position - start - 2;
+                if (length > Integer.MAX_VALUE)
+                    throw syntaxError("String too long");
+
+                byte[] bytes = new byte[(int) length];
+                for (int i = 0; i < bytes.length; i++)
+                    bytes[i] = input.get(start + 1 + i);
+
+                return new String(bytes, StandardCharsets.UTF_8);
+            } else {
+                // let the JSON parser resolve escape sequences
+                try (JsonReader reader = new JsonReader(input.newReader(start, position))) {
+                    return reader.nextString();
+                } catch (IOException e) {
+                    throw new JsonIOException(e);
+                }
+            }
+        }
+
+        private boolean skipString() {
+            boolean escaped = false;
+            position++;
+
+            while (true) {
+                int c = next();
+                if (c == '"')
+                    return escaped;
+                else if (c == '\\') {
+                    escaped = true;
+                    next();
+                }
+            }
+        }
+
+        private boolean nextSeparator(char close) {
+            int c = peek();
+            position++;
+            if (c == ',')
+                return true;
+            else if (c == close)
+                return false;
+
+            throw syntaxError("Expected ',' or '" + close + "'");
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected)
+                throw syntaxError("Expected '" + expected + "'");
+
+            position++;
+        }
+
+        private int peek() {
+            while (position < end) {
+                int c = input.get(position) & 0xff;
+                if (!isWhitespace(c))
+                    return c;
+
+                position++;
+            }
+
+            return -1;
+        }
+
+        private int next() {
+            if (position >= end)
+                throw syntaxError("Unexpected end of input");
+
+            return input.get(position++);
+        }
+
+        private void skipByteOrderMark() {
+            if (end >= 3
+                    && input.get(0) == (byte) 0xef
+                    && input.get(1) == (byte) 0xbb
+                    && input.get(2) == (byte) 0xbf)
+                position = 3;
+        }
+
+        private boolean isWhitespace(int c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+        }
+
+        private JsonSyntaxException syntaxError(String message) {
+            return new JsonSyntaxException(message + " at byte offset " + position + " of " + input.getFile());
+        }
+    }
+}
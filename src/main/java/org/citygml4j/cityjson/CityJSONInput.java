@@ -0,0 +1,405 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.feature.CityObjectsAdapter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class CityJSONInput implements Closeable {
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int BATCH_SIZE = 256;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private boolean lazyCityObjects;
+    private Path indexFile;
+    private CityJSONIndex index;
+
+    public CityJSONInput(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            size = channel.size();
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long offset = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_SIZE, size - offset));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public CityJSONInput withLazyCityObjects(boolean lazyCityObjects) {
+        this.lazyCityObjects = lazyCityObjects;
+        return this;
+    }
+
+    public CityJSONInput withIndexFile(Path indexFile) {
+        this.indexFile = indexFile;
+        return this;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte get(long position) {
+        if (position < 0 || position >= size)
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    public Reader newReader() {
+        return new MappedReader(0, size);
+    }
+
+    public Reader newReader(long start, long end) {
+        if (start < 0 || end > size || start > end)
+            throw new IndexOutOfBoundsException("Range: [" + start + ", " + end + "), Size: " + size);
+
+        return new MappedReader(start, end);
+    }
+
+    public JsonReader newJsonReader(Gson gson) {
+        return gson.newJsonReader(newReader());
+    }
+
+    public CityJSONReader newCityJSONReader(Gson gson) {
+        return new CityJSONReader(newReader(), gson);
+    }
+
+    public synchronized CityJSONIndex getIndex() {
+        if (index == null) {
+            index = loadIndex();
+            if (index == null)
+                index = CityJSONIndex.scan(this);
+        }
+
+        return index;
+    }
+
+    public synchronized CityJSONIndex getIndexWithBoundingBoxes() throws IOException {
+        if (index == null || !index.hasBoundingBoxes()) {
+            CityJSONIndex index = loadIndex();
+            if (index == null || !index.hasBoundingBoxes()) {
+                index = CityJSONIndex.build(this);
+                if (indexFile != null)
+                    index.save(indexFile, this);
+            }
+
+            this.index = index;
+        }
+
+        return index;
+    }
+
+    public AbstractCityObjectType readCityObject(String gmlId, Gson gson) {
+        CityJSONIndex index = getIndex();
+        int position = index.indexOf(gmlId);
+        return position != -1 ? readCityObject(index, position, gson) : null;
+    }
+
+    public List<AbstractCityObjectType> readCityObjects(double minX, double minY, double maxX, double maxY, Gson gson) throws IOException {
+        CityJSONIndex index = getIndexWithBoundingBoxes();
+        List<AbstractCityObjectType> cityObjects = new ArrayList<>();
+        for (int position : index.query(minX, minY, maxX, maxY)) {
+            AbstractCityObjectType cityObject = readCityObject(index, position, gson);
+            if (cityObject != null)
+                cityObjects.add(cityObject);
+        }
+
+        return cityObjects;
+    }
+
+    AbstractCityObjectType readCityObject(CityJSONIndex index, int position, Gson gson) {
+        long offset = index.getOffset(position);
+        try (JsonReader reader = gson.newJsonReader(newReader(offset, offset + index.getLength(position)))) {
+            AbstractCityObjectType cityObject = gson.getAdapter(AbstractCityObjectType.class).read(reader);
+            if (cityObject != null)
+                cityObject.setGmlId(index.getGmlId(position));
+
+            return cityObject;
+        } catch (IOException e) {
+            throw new JsonIOException("Failed to read the city object '" + index.getGmlId(position) + "'.", e);
+        }
+    }
+
+    String readCityObjectType(CityJSONIndex index, int position, Gson gson) {
+        // skip all members of the city object except for its type
+        long offset = index.getOffset(position);
+        try (JsonReader reader = gson.newJsonReader(newReader(offset, offset + index.getLength(position)))) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("type".equals(reader.nextName()) && reader.peek() != JsonToken.NULL)
+                        return reader.nextString();
+
+                    reader.skipValue();
+                }
+            }
+
+            return null;
+        } catch (IOException e) {
+            throw new JsonIOException("Failed to read the city object '" + index.getGmlId(position) + "'.", e);
+        }
+    }
+
+    private CityJSONIndex loadIndex() {
+        if (indexFile != null && Files.exists(indexFile)) {
+            try {
+                return CityJSONIndex.load(indexFile, this);
+            } catch (IOException e) {
+                // the index is outdated or corrupt and must be rebuilt
+            }
+        }
+
+        return null;
+    }
+
+    public CityJSON read(Gson gson) {
+        if (lazyCityObjects)
+            return readLazily(gson);
+
+        TypeAdapter<?> adapter = gson.getAdapter(new TypeToken<Map<String, AbstractCityObjectType>>() {
+        });
+
+        return adapter instanceof CityObjectsAdapter && ((CityObjectsAdapter) adapter).isReadInParallel() ?
+                readInParallel(gson, ((CityObjectsAdapter) adapter).getReadPool()) :
+                gson.fromJson(newJsonReader(gson), CityJSON.class);
+    }
+
+    private CityJSON readLazily(Gson gson) {
+        CityJSONIndex index = getIndex();
+        CityJSON cityJSON = readProperties(index, gson);
+
+        // city objects are only parsed when they are accessed
+        CityJSONAdapter adapter = CityJSONAdapter.getInstance(gson);
+        if (!adapter.isSkipped("CityObjects"))
+            cityJSON.cityObjects = new LazyCityObjects(this, index, gson);
+
+        // city objects without an extent can only be filtered by their vertices after reading
+        adapter.applyFilters(cityJSON);
+        return cityJSON;
+    }
+
+    private CityJSON readInParallel(Gson gson, ForkJoinPool pool) {
+        CityJSONIndex index = getIndex();
+        CityJSON cityJSON = readProperties(index, gson);
+
+        // parse the byte slices of the city objects concurrently
+        CityJSONAdapter adapter = CityJSONAdapter.getInstance(gson);
+        int size = !adapter.isSkipped("CityObjects") ? index.size() : 0;
+        List<ForkJoinTask<AbstractCityObjectType[]>> tasks = new ArrayList<>();
+        for (int start = 0; start < size; start += BATCH_SIZE) {
+            int from = start, to = Math.min(start + BATCH_SIZE, size);
+            tasks.add(pool.submit(() -> {
+                AbstractCityObjectType[] cityObjects = new AbstractCityObjectType[to - from];
+                for (int position = from; position < to; position++)
+                    cityObjects[position - from] = readCityObject(index, position, gson);
+
+                return cityObjects;
+            }));
+        }
+
+        Map<String, AbstractCityObjectType> cityObjects = new LinkedHashMap<>();
+        try {
+            for (ForkJoinTask<AbstractCityObjectType[]> task : tasks) {
+                for (AbstractCityObjectType cityObject : task.join()) {
+                    if (cityObject != null)
+                        cityObjects.put(cityObject.getGmlId(), cityObject);
+                }
+            }
+        } finally {
+            for (ForkJoinTask<AbstractCityObjectType[]> task : tasks)
+                task.cancel(false);
+        }
+
+        cityJSON.cityObjects = cityObjects;
+        adapter.applyFilters(cityJSON);
+        return cityJSON;
+    }
+
+    private CityJSON readProperties(CityJSONIndex index, Gson gson) {
+        CityJSONAdapter adapter = CityJSONAdapter.getInstance(gson);
+        CityJSON cityJSON = adapter.newCityJSON();
+
+        for (String name : index.getPropertyNames()) {
+            if ("CityObjects".equals(name) || adapter.isSkipped(name))
+                continue;
+
+            long offset = index.getPropertyOffset(name);
+            try (JsonReader reader = gson.newJsonReader(newReader(offset, offset + index.getPropertyLength(name)))) {
+                adapter.readProperty(name, reader, cityJSON);
+            } catch (IOException e) {
+                throw new JsonIOException("Failed to read the property '" + name + "'.", e);
+            }
+        }
+
+        return cityJSON;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mapped segments are released once they become unreachable
+        channel.close();
+    }
+
+    private class MappedReader extends Reader {
+        private final long end;
+        private long position;
+        private int pending = -1;
+
+        MappedReader(long start, long end) {
+            position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (offset < 0 || length < 0 || length > buffer.length - offset)
+                throw new IndexOutOfBoundsException();
+            else if (length == 0)
+                return 0;
+
+            int read = 0;
+            if (pending != -1) {
+                buffer[offset + read++] = (char) pending;
+                pending = -1;
+            }
+
+            while (read < length && position < end) {
+                MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+                int index = (int) (position & SEGMENT_MASK);
+                int limit = (int) Math.min(segment.limit(), index + Math.min(end - position, length - read));
+
+                // fast path for ASCII characters
+                int start = index;
+                while (index < limit) {
+                    byte b = segment.get(index);
+                    if (b < 0)
+                        break;
+
+                    buffer[offset + read++] = (char) b;
+                    index++;
+                }
+
+                position += index - start;
+                if (index < limit) {
+                    int codePoint = decode();
+                    if (Character.isBmpCodePoint(codePoint))
+                        buffer[offset + read++] = (char) codePoint;
+                    else {
+                        buffer[offset + read++] = Character.highSurrogate(codePoint);
+                        if (read < length)
+                            buffer[offset + read++] = Character.lowSurrogate(codePoint);
+                        else
+                            pending = Character.lowSurrogate(codePoint);
+                    }
+                }
+            }
+
+            return read > 0 ? read : -1;
+        }
+
+        private int decode() {
+            int b = get(position) & 0xff;
+            int length, codePoint, min;
+            if (b >= 0xf0 && b < 0xf8) {
+                length = 4;
+                codePoint = b & 0x07;
+                min = 0x10000;
+            } else if (b >= 0xe0) {
+                length = b < 0xf0 ? 3 : 0;
+                codePoint = b & 0x0f;
+                min = 0x800;
+            } else if (b >= 0xc0) {
+                length = 2;
+                codePoint = b & 0x1f;
+                min = 0x80;
+            } else
+                length = codePoint = min = 0;
+
+            if (length > 0 && position + length <= end) {
+                for (int i = 1; i < length; i++) {
+                    int next = get(position + i) & 0xff;
+                    if ((next & 0xc0) != 0x80) {
+                        length = 0;
+                        break;
+                    }
+
+                    codePoint = (codePoint << 6) | (next & 0x3f);
+                }
+
+                if (length > 0
+                        && codePoint >= min
+                        && codePoint <= Character.MAX_CODE_POINT
+                        && (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE)) {
+                    position += length;
+                    return codePoint;
+                }
+            }
+
+            // replace malformed input like InputStreamReader does
+            position++;
+            return 0xfffd;
+        }
+
+        @Override
+        public void close() {
+            // the mapped file is closed by the enclosing input
+        }
+    }
+}
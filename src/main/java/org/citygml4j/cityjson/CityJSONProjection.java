@@ -0,0 +1,94 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CityJSONProjection {
+    private final Set<String> rootMembers = new HashSet<>();
+    private final Set<String> cityObjectMembers = new HashSet<>();
+    private final Set<String> geometryMembers = new HashSet<>();
+
+    public CityJSONProjection skipRootMembers(String... names) {
+        rootMembers.addAll(Arrays.asList(names));
+        rootMembers.remove("type");
+        return this;
+    }
+
+    public CityJSONProjection skipCityObjectMembers(String... names) {
+        cityObjectMembers.addAll(Arrays.asList(names));
+        cityObjectMembers.remove("type");
+        return this;
+    }
+
+    public CityJSONProjection skipGeometryMembers(String... names) {
+        geometryMembers.addAll(Arrays.asList(names));
+        geometryMembers.remove("type");
+        return this;
+    }
+
+    public CityJSONProjection skipGeometry() {
+        // vertices, templates and appearances are useless without geometry
+        skipRootMembers("vertices", "geometry-templates", "appearance");
+        return skipCityObjectMembers("geometry");
+    }
+
+    public CityJSONProjection skipAppearance() {
+        skipRootMembers("appearance");
+        return skipGeometryMembers("texture", "material");
+    }
+
+    public CityJSONProjection skipGeometryTemplates() {
+        return skipRootMembers("geometry-templates");
+    }
+
+    public CityJSONProjection skipAttributes() {
+        return skipCityObjectMembers("attributes");
+    }
+
+    public Set<String> getSkippedRootMembers() {
+        return Collections.unmodifiableSet(rootMembers);
+    }
+
+    public Set<String> getSkippedCityObjectMembers() {
+        return Collections.unmodifiableSet(cityObjectMembers);
+    }
+
+    public Set<String> getSkippedGeometryMembers() {
+        return Collections.unmodifiableSet(geometryMembers);
+    }
+
+    public boolean isSkipRootMember(String name) {
+        return rootMembers.contains(name);
+    }
+
+    public boolean isSkipCityObjectMember(String name) {
+        return cityObjectMembers.contains(name);
+    }
+
+    public boolean isSkipGeometryMember(String name) {
+        return geometryMembers.contains(name);
+    }
+}
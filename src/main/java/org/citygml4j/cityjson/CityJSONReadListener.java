@@ -0,0 +1,53 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import org.citygml4j.cityjson.appearance.AppearanceType;
+import org.citygml4j.cityjson.extension.ExtensionType;
+import org.citygml4j.cityjson.geometry.GeometryTemplatesType;
+import org.citygml4j.cityjson.geometry.TransformType;
+import org.citygml4j.cityjson.metadata.MetadataType;
+
+import java.util.Map;
+
+public interface CityJSONReadListener {
+    default void metadata(MetadataType metadata) {
+    }
+
+    default void extensions(Map<String, ExtensionType> extensions) {
+    }
+
+    default void transform(TransformType transform) {
+    }
+
+    default void appearance(AppearanceType appearance) {
+    }
+
+    default void geometryTemplates(GeometryTemplatesType geometryTemplates) {
+    }
+
+    default void vertex(int index, double x, double y, double z) {
+    }
+
+    default void extensionProperty(String name, Object value) {
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class CityJSONReader implements Iterator<AbstractCityObjectType>, Closeable {
+    private final JsonReader in;
+    private final CityJSONAdapter adapter;
+    private final TypeAdapter<AbstractCityObjectType> cityObjectAdapter;
+    private final CityJSON cityJSON;
+
+    private CityJSONReadListener listener = new CityJSONReadListener() {
+    };
+
+    private State state = State.INITIAL;
+    private AbstractCityObjectType next;
+    private int vertexCount;
+
+    private enum State {
+        INITIAL,
+        PROPERTIES,
+        CITY_OBJECTS,
+        END
+    }
+
+    public CityJSONReader(JsonReader in, Gson gson) {
+        this.in = in;
+        adapter = CityJSONAdapter.getInstance(gson);
+        cityObjectAdapter = gson.getAdapter(AbstractCityObjectType.class);
+        cityJSON = adapter.newCityJSON();
+    }
+
+    public CityJSONReader(Reader reader, Gson gson) {
+        this(gson.newJsonReader(reader), gson);
+    }
+
+    public CityJSONReader withListener(CityJSONReadListener listener) {
+        if (listener != null)
+            this.listener = listener;
+
+        return this;
+    }
+
+    public CityJSON getCityJSON() {
+        return cityJSON;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null) {
+                switch (state) {
+                    case INITIAL:
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                            state = State.END;
+                        } else {
+                            in.beginObject();
+                            state = State.PROPERTIES;
+                        }
+                        break;
+                    case PROPERTIES:
+                        if (in.hasNext())
+                            readProperty(in.nextName());
+                        else {
+                            in.endObject();
+                            state = State.END;
+                        }
+                        break;
+                    case CITY_OBJECTS:
+                        if (in.hasNext())
+                            next = readCityObject(in.nextName());
+                        else {
+                            in.endObject();
+                            state = State.PROPERTIES;
+                        }
+                        break;
+                    case END:
+                        return false;
+                }
+            }
+
+            return true;
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    @Override
+    public AbstractCityObjectType next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        AbstractCityObjectType cityObject = next;
+        next = null;
+        return cityObject;
+    }
+
+    public Stream<AbstractCityObjectType> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new JsonIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        state = State.END;
+        next = null;
+        in.close();
+    }
+
+    private void readProperty(String key) throws IOException {
+        if (adapter.isSkipped(key)) {
+            in.skipValue();
+            return;
+        }
+
+        switch (key) {
+            case "CityObjects":
+                if (in.peek() != JsonToken.NULL) {
+                    in.beginObject();
+                    state = State.CITY_OBJECTS;
+                } else
+                    in.nextNull();
+                break;
+            case "vertices":
+                readVertices();
+                break;
+            default:
+                adapter.readProperty(key, in, cityJSON);
+                switch (key) {
+                    case "metadata":
+                        listener.metadata(cityJSON.metadata);
+                        break;
+                    case "extensions":
+                        listener.extensions(cityJSON.extensions);
+                        break;
+                    case "transform":
+                        listener.transform(cityJSON.transform);
+                        break;
+                    case "appearance":
+                        listener.appearance(cityJSON.appearance);
+                        break;
+                    case "geometry-templates":
+                        listener.geometryTemplates(cityJSON.geometryTemplates);
+                        break;
+                    default:
+                        if (cityJSON.isSetExtensionProperties() && cityJSON.getExtensionProperties().containsKey(key))
+                            listener.extensionProperty(key, cityJSON.getExtensionProperties().get(key));
+                }
+        }
+    }
+
+    private AbstractCityObjectType readCityObject(String gmlId) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        AbstractCityObjectType cityObject = cityObjectAdapter.read(in);
+        if (cityObject != null)
+            cityObject.setGmlId(gmlId);
+
+        return cityObject;
+    }
+
+    private void readVertices() throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                vertexCount++;
+                continue;
+            }
+
+            in.beginArray();
+            if (in.peek() == JsonToken.NUMBER)
+                listener.vertex(vertexCount, in.nextDouble(), in.nextDouble(), in.nextDouble());
+
+            vertexCount++;
+            in.endArray();
+        }
+
+        in.endArray();
+    }
+}
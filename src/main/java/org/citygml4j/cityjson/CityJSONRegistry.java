@@ -33,6 +33,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CityJSONRegistry {
     private static CityJSONRegistry instance;
@@ -42,6 +43,8 @@ public class CityJSONRegistry {
     private final Map<Class<? extends ExtensibleType>, Map<String, Type>> properties;
 
     private final Set<String> coreTypes;
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile CityJSONRegistrySnapshot snapshot;
 
     private CityJSONRegistry() {
         types = new ConcurrentHashMap<>();
@@ -94,38 +97,39 @@ public class CityJSONRegistry {
         return instance;
     }
 
+    public static CityJSONRegistry newInstance() {
+        return new CityJSONRegistry();
+    }
+
+    public CityJSONRegistrySnapshot snapshot() {
+        CityJSONRegistrySnapshot snapshot = this.snapshot;
+        int version = this.version.get();
+        if (snapshot == null || snapshot.getVersion() != version) {
+            snapshot = new CityJSONRegistrySnapshot(version, types, semanticSurfaces, properties, coreTypes);
+            this.snapshot = snapshot;
+        }
+
+        return snapshot;
+    }
+
+    public int getVersion() {
+        return version.get();
+    }
+
     public boolean isCoreCityObject(String type) {
         return coreTypes.contains(type);
     }
 
     public String getCityObjectType(AbstractCityObjectType cityObject) {
-        String type = null;
-        for (Map.Entry<String, Class<? extends AbstractCityObjectType>> entry : types.entrySet()) {
-            if (cityObject.getClass() == entry.getValue()) {
-                type = entry.getKey();
-                break;
-            }
-        }
-
-        if (type == null)
-            type = cityObject.getClass().getTypeName();
+        return getCityObjectType(cityObject.getClass());
+    }
 
-        return type;
+    public String getCityObjectType(Class<? extends AbstractCityObjectType> typeClass) {
+        return snapshot().getCityObjectType(typeClass);
     }
 
     public Class<? extends AbstractCityObjectType> getCityObjectClass(String type) {
-        Class<? extends AbstractCityObjectType> typeClass = types.get(type);
-        if (typeClass == null) {
-            try {
-                Class<?> tmp = Class.forName(type);
-                if (AbstractCityObjectType.class.isAssignableFrom(tmp))
-                    typeClass = tmp.asSubclass(AbstractCityObjectType.class);
-            } catch (ClassNotFoundException e) {
-                //
-            }
-        }
-
-        return typeClass;
+        return snapshot().getCityObjectClass(type);
     }
 
     public void registerCityObject(String type, Class<? extends AbstractCityObjectType> typeClass) throws ExtensionException {
@@ -142,40 +146,24 @@ public class CityJSONRegistry {
             throw new ExtensionException("The city object type class '" + typeClass.getTypeName() + "' is already registered.");
 
         types.put(type, typeClass);
+        version.incrementAndGet();
     }
 
     public void unregisterCityObject(String type) {
-        types.remove(type);
+        if (types.remove(type) != null)
+            version.incrementAndGet();
     }
 
     public String getSemanticSurfaceType(SemanticsType semanticsType) {
-        String type = null;
-        for (Map.Entry<String, Class<? extends SemanticsType>> entry : semanticSurfaces.entrySet()) {
-            if (semanticsType.getClass() == entry.getValue()) {
-                type = entry.getKey();
-                break;
-            }
-        }
-
-        if (type == null)
-            type = semanticsType.getClass().getTypeName();
+        return getSemanticSurfaceType(semanticsType.getClass());
+    }
 
-        return type;
+    public String getSemanticSurfaceType(Class<? extends SemanticsType> semanticSurfaceClass) {
+        return snapshot().getSemanticSurfaceType(semanticSurfaceClass);
     }
 
     public Class<? extends SemanticsType> getSemanticSurfaceClass(String type) {
-        Class<? extends SemanticsType> typeClass = semanticSurfaces.get(type);
-        if (typeClass == null) {
-            try {
-                Class<?> tmp = Class.forName(type);
-                if (SemanticsType.class.isAssignableFrom(tmp))
-                    typeClass = tmp.asSubclass(SemanticsType.class);
-            } catch (ClassNotFoundException e) {
-                //
-            }
-        }
-
-        return typeClass;
+        return snapshot().getSemanticSurfaceClass(type);
     }
 
     public void registerSemanticSurface(String type, Class<? extends SemanticsType> semanticSurfaceClass) throws ExtensionException {
@@ -192,22 +180,16 @@ public class CityJSONRegistry {
             throw new ExtensionException("The semantic surface class '" + semanticSurfaceClass.getTypeName() + "' is already registered.");
 
         semanticSurfaces.put(type, semanticSurfaceClass);
+        version.incrementAndGet();
     }
 
     public void unregisterSemanticSurface(String type) {
-        semanticSurfaces.remove(type);
+        if (semanticSurfaces.remove(type) != null)
+            version.incrementAndGet();
     }
 
     public Type getExtensionPropertyClass(String propertyName, ExtensibleType target) {
-        Class<?> cls = target.getClass();
-        do {
-            Type type = properties.getOrDefault(cls, Collections.emptyMap()).get(propertyName);
-            if (type != null) {
-                return type;
-            }
-        } while ((cls = cls.getSuperclass()) != Object.class);
-
-        return null;
+        return snapshot().getExtensionPropertyClass(propertyName, target);
     }
 
     public boolean hasExtensionProperty(String propertyName, ExtensibleType target) {
@@ -237,6 +219,7 @@ public class CityJSONRegistry {
 
         Map<String, Type> property = properties.computeIfAbsent(targetClass, v -> new ConcurrentHashMap<>());
         property.put(name, attributeType);
+        version.incrementAndGet();
     }
 
     public void unregisterExtensionProperty(String name, Class<? extends ExtensibleType> targetClass) {
@@ -245,6 +228,8 @@ public class CityJSONRegistry {
                 if (entry.getKey().isAssignableFrom(targetClass) || targetClass.isAssignableFrom(entry.getKey()))
                     entry.getValue().remove(name);
             }
+
+            version.incrementAndGet();
         }
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import org.citygml4j.cityjson.extension.ExtensibleType;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.geometry.SemanticsType;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CityJSONRegistrySnapshot {
+    private static final int MAX_UNKNOWN_TYPES = 1024;
+
+    private final int version;
+    private final Map<String, Class<? extends AbstractCityObjectType>> types;
+    private final Map<Class<?>, String> typeNames = new HashMap<>();
+    private final Map<String, Class<? extends SemanticsType>> semanticSurfaces;
+    private final Map<Class<?>, String> semanticSurfaceNames = new HashMap<>();
+    private final Map<Class<?>, Map<String, Type>> properties = new HashMap<>();
+    private final Set<String> coreTypes;
+
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+    private final Set<String> unknownTypes = ConcurrentHashMap.newKeySet();
+    private final Map<Class<?>, Map<String, Type>> hierarchyProperties = new ConcurrentHashMap<>();
+
+    CityJSONRegistrySnapshot(int version,
+                             Map<String, Class<? extends AbstractCityObjectType>> types,
+                             Map<String, Class<? extends SemanticsType>> semanticSurfaces,
+                             Map<Class<? extends ExtensibleType>, Map<String, Type>> properties,
+                             Set<String> coreTypes) {
+        this.version = version;
+        this.types = Collections.unmodifiableMap(new HashMap<>(types));
+        this.semanticSurfaces = Collections.unmodifiableMap(new HashMap<>(semanticSurfaces));
+        this.coreTypes = Collections.unmodifiableSet(new HashSet<>(coreTypes));
+
+        // reverse indexes for serialization
+        this.types.forEach((type, typeClass) -> typeNames.putIfAbsent(typeClass, type));
+        this.semanticSurfaces.forEach((type, typeClass) -> semanticSurfaceNames.putIfAbsent(typeClass, type));
+
+        for (Map.Entry<Class<? extends ExtensibleType>, Map<String, Type>> entry : properties.entrySet()) {
+            if (!entry.getValue().isEmpty())
+                this.properties.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isCoreCityObject(String type) {
+        return coreTypes.contains(type);
+    }
+
+    public String getCityObjectType(AbstractCityObjectType cityObject) {
+        return getCityObjectType(cityObject.getClass());
+    }
+
+    public String getCityObjectType(Class<? extends AbstractCityObjectType> typeClass) {
+        String type = typeNames.get(typeClass);
+        return type != null ? type : typeClass.getTypeName();
+    }
+
+    public Class<? extends AbstractCityObjectType> getCityObjectClass(String type) {
+        Class<? extends AbstractCityObjectType> typeClass = types.get(type);
+        if (typeClass == null && type != null) {
+            Class<?> tmp = loadClass(type);
+            if (tmp != null && AbstractCityObjectType.class.isAssignableFrom(tmp))
+                typeClass = tmp.asSubclass(AbstractCityObjectType.class);
+        }
+
+        return typeClass;
+    }
+
+    public Map<String, Class<? extends AbstractCityObjectType>> getCityObjectTypes() {
+        return types;
+    }
+
+    public String getSemanticSurfaceType(SemanticsType semanticsType) {
+        return getSemanticSurfaceType(semanticsType.getClass());
+    }
+
+    public String getSemanticSurfaceType(Class<? extends SemanticsType> semanticSurfaceClass) {
+        String type = semanticSurfaceNames.get(semanticSurfaceClass);
+        return type != null ? type : semanticSurfaceClass.getTypeName();
+    }
+
+    public Class<? extends SemanticsType> getSemanticSurfaceClass(String type) {
+        Class<? extends SemanticsType> typeClass = semanticSurfaces.get(type);
+        if (typeClass == null && type != null) {
+            Class<?> tmp = loadClass(type);
+            if (tmp != null && SemanticsType.class.isAssignableFrom(tmp))
+                typeClass = tmp.asSubclass(SemanticsType.class);
+        }
+
+        return typeClass;
+    }
+
+    public Map<String, Class<? extends SemanticsType>> getSemanticSurfaceTypes() {
+        return semanticSurfaces;
+    }
+
+    public Type getExtensionPropertyClass(String propertyName, ExtensibleType target) {
+        return getExtensionProperties(target.getClass()).get(propertyName);
+    }
+
+    public Map<String, Type> getExtensionProperties(Class<?> targetClass) {
+        if (properties.isEmpty())
+            return Collections.emptyMap();
+
+        // merge the extension properties along the class hierarchy only once
+        return hierarchyProperties.computeIfAbsent(targetClass, v -> {
+            Map<String, Type> merged = new HashMap<>();
+            Class<?> cls = targetClass;
+            do {
+                properties.getOrDefault(cls, Collections.emptyMap()).forEach(merged::putIfAbsent);
+            } while ((cls = cls.getSuperclass()) != null && cls != Object.class);
+
+            return merged.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(merged);
+        });
+    }
+
+    public boolean hasExtensionProperty(String propertyName, ExtensibleType target) {
+        return getExtensionPropertyClass(propertyName, target) != null;
+    }
+
+    public boolean hasExtensionProperty(String propertyName, Class<? extends ExtensibleType> targetClass) {
+        return properties.getOrDefault(targetClass, Collections.emptyMap()).containsKey(propertyName);
+    }
+
+    private Class<?> loadClass(String type) {
+        Class<?> typeClass = classes.get(type);
+        if (typeClass == null && !unknownTypes.contains(type)) {
+            try {
+                typeClass = Class.forName(type);
+                classes.putIfAbsent(type, typeClass);
+            } catch (ClassNotFoundException e) {
+                // unknown type names come from the input, so only a limited number of them is cached
+                if (unknownTypes.size() >= MAX_UNKNOWN_TYPES)
+                    unknownTypes.clear();
+
+                unknownTypes.add(type);
+            }
+        }
+
+        return typeClass;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.citygml4j.cityjson.appearance.AppearanceType;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.geometry.VerticesList;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class CityJSONSeqReader implements Iterator<CityJSONFeature>, Closeable {
+    private final BufferedReader reader;
+    private final Gson gson;
+    private final CityJSONAdapter adapter;
+    private final TypeAdapter<AbstractCityObjectType> cityObjectAdapter;
+    private final TypeAdapter<VerticesList> verticesAdapter;
+    private final TypeAdapter<AppearanceType> appearanceAdapter;
+
+    private CityJSON header;
+    private CityJSONFeature next;
+    private boolean end;
+
+    public CityJSONSeqReader(Reader reader, Gson gson) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.gson = gson;
+        adapter = CityJSONAdapter.getInstance(gson);
+        cityObjectAdapter = gson.getAdapter(AbstractCityObjectType.class);
+        verticesAdapter = gson.getAdapter(VerticesList.class);
+        appearanceAdapter = gson.getAdapter(AppearanceType.class);
+    }
+
+    public CityJSON getHeader() {
+        if (header == null && !end) {
+            try {
+                JsonReader in = nextLine();
+                if (in != null) {
+                    header = adapter.read(in);
+                    endLine(in);
+                } else
+                    end = true;
+            } catch (MalformedJsonException e) {
+                throw new JsonSyntaxException(e);
+            } catch (IOException e) {
+                throw new JsonIOException(e);
+            }
+
+            if (header == null)
+                header = adapter.newCityJSON();
+        }
+
+        return header;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null)
+            return true;
+        else if (end)
+            return false;
+
+        CityJSON header = getHeader();
+
+        try {
+            while (next == null) {
+                JsonReader in = nextLine();
+                if (in == null) {
+                    end = true;
+                    return false;
+                } else if (in.peek() == JsonToken.NULL)
+                    in.nextNull();
+                else
+                    next = readFeature(in, header);
+
+                endLine(in);
+            }
+
+            return true;
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    @Override
+    public CityJSONFeature next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        CityJSONFeature feature = next;
+        next = null;
+        return feature;
+    }
+
+    public CityJSON readAll() {
+        CityJSON cityJSON = getHeader();
+        while (hasNext())
+            next().appendTo(cityJSON);
+
+        return cityJSON;
+    }
+
+    public Stream<CityJSONFeature> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new JsonIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        end = true;
+        next = null;
+        reader.close();
+    }
+
+    private JsonReader nextLine() throws IOException {
+        // every line of a sequence is parsed as a single JSON value
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.trim().isEmpty())
+                return gson.newJsonReader(new StringReader(line));
+        }
+
+        return null;
+    }
+
+    private void endLine(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.END_DOCUMENT)
+            throw new MalformedJsonException("Expected a single JSON value per line but found " + in.peek() + " at " + in.getPath() + ".");
+    }
+
+    private CityJSONFeature readFeature(JsonReader in, CityJSON header) throws IOException {
+        CityJSONFeature feature = new CityJSONFeature();
+        in.beginObject();
+
+        while (in.hasNext()) {
+            String key = in.nextName();
+            if (adapter.isSkipped(key)) {
+                in.skipValue();
+                continue;
+            }
+
+            switch (key) {
+                case "id":
+                    if (in.peek() != JsonToken.NULL)
+                        feature.id = in.nextString();
+                    else
+                        in.nextNull();
+                    break;
+                case "CityObjects":
+                    readCityObjects(in, feature);
+                    break;
+                case "vertices":
+                    VerticesList vertices = verticesAdapter.read(in);
+                    if (vertices != null) {
+                        vertices.setTransform(header.transform);
+                        feature.vertices = vertices;
+                    }
+                    break;
+                case "appearance":
+                    // materials and textures of the feature are referenced by its own geometries
+                    feature.appearance = appearanceAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+
+        in.endObject();
+        return feature;
+    }
+
+    private void readCityObjects(JsonReader in, CityJSONFeature feature) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String gmlId = in.nextName();
+            AbstractCityObjectType cityObject = cityObjectAdapter.read(in);
+            if (cityObject != null) {
+                cityObject.setGmlId(gmlId);
+                feature.cityObjects.put(gmlId, cityObject);
+            }
+        }
+
+        in.endObject();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import org.citygml4j.cityjson.appearance.AppearanceType;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.feature.CityObjectTypeAdapter;
+import org.citygml4j.cityjson.geometry.VerticesList;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+public class CityJSONSeqWriter implements Closeable, Flushable {
+    private final Writer writer;
+    private final Gson gson;
+    private final CityJSONAdapter adapter;
+    private final TypeAdapter<AbstractCityObjectType> cityObjectAdapter;
+    private final TypeAdapter<VerticesList> verticesAdapter;
+    private final TypeAdapter<AppearanceType> appearanceAdapter;
+
+    private CityJSON header;
+
+    public CityJSONSeqWriter(Writer writer, Gson gson) {
+        this.writer = writer;
+        this.gson = gson;
+        adapter = new CityJSONAdapter(gson);
+        cityObjectAdapter = gson.getAdapter(AbstractCityObjectType.class);
+        verticesAdapter = gson.getAdapter(VerticesList.class);
+        appearanceAdapter = gson.getAdapter(AppearanceType.class);
+    }
+
+    public void writeHeader(CityJSON cityJSON) throws IOException {
+        if (header != null)
+            throw new IllegalStateException("The header has already been written.");
+
+        header = cityJSON != null ? cityJSON : new CityJSON();
+
+        JsonWriter out = newLineWriter();
+        out.beginObject();
+        adapter.writeHeader(out, header);
+        out.name("CityObjects").beginObject().endObject();
+        out.name("vertices").beginArray().endArray();
+        adapter.writeGlobalProperties(out, header);
+        out.endObject();
+        endLine(out);
+    }
+
+    public void writeFeature(CityJSONFeature feature) throws IOException {
+        if (header == null)
+            throw new IllegalStateException("The header must be written before the first feature.");
+
+        feature.vertices.setTransform(header.transform);
+
+        JsonWriter out = newLineWriter();
+        out.beginObject();
+        out.name("type").value(feature.getType());
+        out.name("id").value(feature.id);
+
+        out.name("CityObjects");
+        out.beginObject();
+        for (Map.Entry<String, AbstractCityObjectType> entry : feature.cityObjects.entrySet()) {
+            if (isWritten(entry.getValue())) {
+                out.name(entry.getKey());
+                cityObjectAdapter.write(out, entry.getValue());
+            }
+        }
+
+        out.endObject();
+
+        out.name("vertices");
+        verticesAdapter.write(out, feature.vertices);
+
+        if (feature.appearance != null) {
+            out.name("appearance");
+            appearanceAdapter.write(out, feature.appearance);
+        }
+
+        out.endObject();
+        endLine(out);
+    }
+
+    public void writeCityObject(AbstractCityObjectType cityObject, CityJSON source) throws IOException {
+        if (!cityObject.isSetGmlId())
+            cityObject.setGmlId(null);
+
+        CityJSONFeature feature = new CityJSONFeature();
+        feature.id = cityObject.getGmlId();
+        collectCityObjects(cityObject, source, feature.cityObjects);
+
+        // re-index the referenced vertices to a local vertices array
+        Map<Integer, Integer> localIndexes = new HashMap<>();
+        List<Integer> globalIndexes = new ArrayList<>();
+        for (AbstractCityObjectType member : feature.cityObjects.values()) {
+            member.forEachVertexIndex(index -> localIndexes.computeIfAbsent(index, v -> {
+                globalIndexes.add(index);
+                return globalIndexes.size() - 1;
+            }));
+        }
+
+        VerticesList vertices = source.getVerticesList();
+        feature.vertices.ensureCapacity(globalIndexes.size());
+        for (int index : globalIndexes) {
+            if (index < 0 || index >= vertices.size() || vertices.isNullVertex(index))
+                feature.vertices.addVertex(null);
+            else if (vertices.isQuantized())
+                feature.vertices.addVertex(vertices.getQuantizedX(index), vertices.getQuantizedY(index), vertices.getQuantizedZ(index));
+            else
+                feature.vertices.addVertex(vertices.getX(index), vertices.getY(index), vertices.getZ(index));
+        }
+
+        // write re-indexed copies to leave the source city objects untouched
+        feature.cityObjects.replaceAll((gmlId, member) -> {
+            AbstractCityObjectType copy = member.clone();
+            copy.updateIndexes(index -> localIndexes.get(index));
+            return copy;
+        });
+
+        writeFeature(feature);
+    }
+
+    public void writeAll(CityJSON cityJSON) throws IOException {
+        if (header == null)
+            writeHeader(cityJSON);
+
+        for (AbstractCityObjectType cityObject : cityJSON.getCityObjects()) {
+            if (isTopLevel(cityObject, cityJSON))
+                writeCityObject(cityObject, cityJSON);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void collectCityObjects(AbstractCityObjectType cityObject, CityJSON source, Map<String, AbstractCityObjectType> cityObjects) {
+        if (cityObjects.putIfAbsent(cityObject.getGmlId(), cityObject) == null && cityObject.isSetChildren()) {
+            for (String child : cityObject.getChildren()) {
+                AbstractCityObjectType childObject = source.getCityObject(child);
+                if (childObject != null)
+                    collectCityObjects(childObject, source, cityObjects);
+            }
+        }
+    }
+
+    private boolean isTopLevel(AbstractCityObjectType cityObject, CityJSON cityJSON) {
+        if (cityObject.isSetParents()) {
+            for (String parent : cityObject.getParents()) {
+                if (cityJSON.hasCityObject(parent))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isWritten(AbstractCityObjectType cityObject) {
+        // skip city objects that are rejected by the type filter
+        return cityObject == null
+                || !(cityObjectAdapter instanceof CityObjectTypeAdapter)
+                || ((CityObjectTypeAdapter) cityObjectAdapter).accept(cityObject);
+    }
+
+    private JsonWriter newLineWriter() {
+        // every line must be written without line breaks
+        JsonWriter out = new JsonWriter(writer);
+        out.setSerializeNulls(gson.serializeNulls());
+        out.setHtmlSafe(gson.htmlSafe());
+        return out;
+    }
+
+    private void endLine(JsonWriter out) throws IOException {
+        // the line writer does not buffer any output
+        writer.write('\n');
+    }
+}
@@ -26,13 +26,14 @@ import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import org.citygml4j.cityjson.appearance.*;
-import org.citygml4j.cityjson.feature.AbstractCityObjectType;
-import org.citygml4j.cityjson.feature.CityObjectTypeAdapter;
-import org.citygml4j.cityjson.feature.CityObjectTypeFilter;
-import org.citygml4j.cityjson.feature.CityObjectsAdapter;
+import org.citygml4j.cityjson.feature.*;
 import org.citygml4j.cityjson.geometry.*;
+import org.citygml4j.cityjson.util.PropertyHelper;
+import org.citygml4j.cityjson.util.StringPool;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class CityJSONTypeAdapterFactory implements TypeAdapterFactory {
     private TypeToken<?> cityObjects = new TypeToken<Map<String, AbstractCityObjectType>>() {
@@ -52,14 +53,63 @@ public class CityJSONTypeAdapterFactory implements TypeAdapterFactory {
     };
 
     private CityObjectTypeFilter typeFilter;
+    private CityObjectSpatialFilter spatialFilter;
+    private CityObjectAttributesFilter attributesFilter;
+    private CityObjectLoDFilter lodFilter;
+    private CityJSONProjection projection;
+    private CityJSONRegistrySnapshot registry;
+    private PropertyHelper propertyHelper;
+    private StringPool stringPool;
     private boolean processUnknownExtensions;
     private boolean serializeVerticesAsInteger;
+    private boolean readCityObjectsInParallel;
+    private boolean writeCityObjectsInParallel;
+    private ForkJoinPool forkJoinPool;
 
     public CityJSONTypeAdapterFactory withTypeFilter(CityObjectTypeFilter inputFilter) {
         this.typeFilter = inputFilter;
         return this;
     }
 
+    public CityJSONTypeAdapterFactory withSpatialFilter(CityObjectSpatialFilter spatialFilter) {
+        this.spatialFilter = spatialFilter;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory withSpatialFilter(List<Double> bbox) {
+        return withSpatialFilter(bbox != null ? new CityObjectSpatialFilter(bbox) : null);
+    }
+
+    public CityJSONTypeAdapterFactory withAttributesFilter(CityObjectAttributesFilter attributesFilter) {
+        this.attributesFilter = attributesFilter;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory withLoDFilter(CityObjectLoDFilter lodFilter) {
+        this.lodFilter = lodFilter;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory withProjection(CityJSONProjection projection) {
+        this.projection = projection;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory withRegistry(CityJSONRegistrySnapshot registry) {
+        this.registry = registry;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory withPropertyHelper(PropertyHelper propertyHelper) {
+        this.propertyHelper = propertyHelper;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory withStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
+    }
+
     public CityJSONTypeAdapterFactory processUnknownExtensions(boolean processUnknownExtensions) {
         this.processUnknownExtensions = processUnknownExtensions;
         return this;
@@ -70,44 +120,98 @@ public class CityJSONTypeAdapterFactory implements TypeAdapterFactory {
         return this;
     }
 
+    public CityJSONTypeAdapterFactory readCityObjectsInParallel(boolean readCityObjectsInParallel) {
+        this.readCityObjectsInParallel = readCityObjectsInParallel;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory writeCityObjectsInParallel(boolean writeCityObjectsInParallel) {
+        this.writeCityObjectsInParallel = writeCityObjectsInParallel;
+        return this;
+    }
+
+    public CityJSONTypeAdapterFactory withForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        return this;
+    }
+
+    private ForkJoinPool getForkJoinPool() {
+        return forkJoinPool != null ? forkJoinPool : ForkJoinPool.commonPool();
+    }
+
+    private PropertyHelper getPropertyHelper() {
+        // a property helper set by the user keeps its own string pool
+        return propertyHelper == null && stringPool != null ?
+                new PropertyHelper().withStringPool(stringPool) :
+                propertyHelper;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
         if (AbstractCityObjectType.class.isAssignableFrom(type.getRawType()))
-            return (TypeAdapter<T>) new CityObjectTypeAdapter(gson, typeFilter, processUnknownExtensions, this);
+            return (TypeAdapter<T>) new CityObjectTypeAdapter(gson, typeFilter, processUnknownExtensions, this)
+                    .withSpatialFilter(spatialFilter)
+                    .withAttributesFilter(attributesFilter)
+                    .withLoDFilter(lodFilter)
+                    .withProjection(projection)
+                    .withRegistry(registry)
+                    .withPropertyHelper(getPropertyHelper())
+                    .withStringPool(stringPool);
 
         else if (AbstractGeometryType.class.isAssignableFrom(type.getRawType()))
-            return (TypeAdapter<T>) new GeometryTypeAdapter(gson, this);
+            return (TypeAdapter<T>) new GeometryTypeAdapter(gson, this).withProjection(projection);
 
         else if (VerticesList.class.isAssignableFrom(type.getRawType()))
-            return (TypeAdapter<T>) new VerticesListAdapter(serializeVerticesAsInteger);
+            return (TypeAdapter<T>) new VerticesListAdapter(serializeVerticesAsInteger,
+                    writeCityObjectsInParallel ? getForkJoinPool() : null);
+
+        else if (BoundaryIndices.class.isAssignableFrom(type.getRawType()))
+            return (TypeAdapter<T>) new BoundaryIndicesAdapter();
 
         else if (type.equals(semantics))
-            return (TypeAdapter<T>) new SemanticsTypeAdapter(gson, this);
+            return (TypeAdapter<T>) new SemanticsTypeAdapter(gson, this)
+                    .withRegistry(registry)
+                    .withPropertyHelper(getPropertyHelper())
+                    .withStringPool(stringPool);
 
         else if (type.equals(surfaceCollectionTexture))
-            return (TypeAdapter<T>) new TextureAdapter<>(gson, SurfaceCollectionTextureObject.class);
+            return (TypeAdapter<T>) new TextureAdapter<>(gson, SurfaceCollectionTextureObject.class)
+                    .withStringPool(stringPool);
 
         else if (type.equals(solidTexture))
-            return (TypeAdapter<T>) new TextureAdapter<>(gson, SolidTextureObject.class);
+            return (TypeAdapter<T>) new TextureAdapter<>(gson, SolidTextureObject.class)
+                    .withStringPool(stringPool);
 
         else if (type.equals(solidCollectionTexture))
-            return (TypeAdapter<T>) new TextureAdapter<>(gson, SolidCollectionTextureObject.class);
+            return (TypeAdapter<T>) new TextureAdapter<>(gson, SolidCollectionTextureObject.class)
+                    .withStringPool(stringPool);
 
         else if (type.equals(surfaceCollectionMaterial))
-            return (TypeAdapter<T>) new MaterialAdapter<>(gson, SurfaceCollectionMaterialObject.class);
+            return (TypeAdapter<T>) new MaterialAdapter<>(gson, SurfaceCollectionMaterialObject.class)
+                    .withStringPool(stringPool);
 
         else if (type.equals(solidMaterial))
-            return (TypeAdapter<T>) new MaterialAdapter<>(gson, SolidMaterialObject.class);
+            return (TypeAdapter<T>) new MaterialAdapter<>(gson, SolidMaterialObject.class)
+                    .withStringPool(stringPool);
 
         else if (type.equals(solidCollectionMaterial))
-            return (TypeAdapter<T>) new MaterialAdapter<>(gson, SolidCollectionMaterialObject.class);
+            return (TypeAdapter<T>) new MaterialAdapter<>(gson, SolidCollectionMaterialObject.class)
+                    .withStringPool(stringPool);
 
         else if (CityJSON.class.isAssignableFrom(type.getRawType()))
-            return (TypeAdapter<T>) new CityJSONAdapter(gson);
+            return (TypeAdapter<T>) new CityJSONAdapter(gson)
+                    .withSpatialFilter(spatialFilter)
+                    .withLoDFilter(lodFilter)
+                    .withProjection(projection)
+                    .withRegistry(registry)
+                    .withPropertyHelper(getPropertyHelper())
+                    .withForkJoinPool(forkJoinPool);
 
         else if (type.equals(cityObjects))
-            return (TypeAdapter<T>) new CityObjectsAdapter(gson);
+            return (TypeAdapter<T>) new CityObjectsAdapter(gson,
+                    readCityObjectsInParallel ? getForkJoinPool() : null,
+                    writeCityObjectsInParallel ? getForkJoinPool() : null);
 
         return null;
     }
@@ -0,0 +1,278 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.feature.CityObjectTypeAdapter;
+import org.citygml4j.cityjson.geometry.VerticesList;
+import org.citygml4j.cityjson.geometry.VerticesListAdapter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+public class CityJSONWriter implements Closeable, Flushable {
+    private final JsonWriter out;
+    private final CityJSONAdapter adapter;
+    private final TypeAdapter<AbstractCityObjectType> cityObjectAdapter;
+    private final VerticesListAdapter verticesAdapter;
+
+    private CityJSON cityJSON;
+    private Path tempDir;
+    private int bufferSize = 1 << 16;
+    private double[] buffer;
+    private int buffered;
+    private int vertexCount;
+    private BitSet nullVertices;
+    private Path tempFile;
+    private DataOutputStream spill;
+    private State state = State.INITIAL;
+
+    private enum State {
+        INITIAL,
+        CITY_OBJECTS,
+        END
+    }
+
+    public CityJSONWriter(JsonWriter out, Gson gson) {
+        this.out = out;
+        adapter = new CityJSONAdapter(gson);
+        cityObjectAdapter = gson.getAdapter(AbstractCityObjectType.class);
+
+        TypeAdapter<VerticesList> verticesAdapter = gson.getAdapter(VerticesList.class);
+        this.verticesAdapter = verticesAdapter instanceof VerticesListAdapter ?
+                (VerticesListAdapter) verticesAdapter :
+                new VerticesListAdapter();
+    }
+
+    public CityJSONWriter(Writer writer, Gson gson) throws IOException {
+        this(gson.newJsonWriter(writer), gson);
+    }
+
+    public CityJSONWriter withTemporaryDirectory(Path tempDir) {
+        this.tempDir = tempDir;
+        return this;
+    }
+
+    public CityJSONWriter withVerticesBufferSize(int bufferSize) {
+        if (bufferSize > 0)
+            this.bufferSize = bufferSize;
+
+        return this;
+    }
+
+    public void writeStartDocument(CityJSON cityJSON) throws IOException {
+        if (state != State.INITIAL)
+            throw new IllegalStateException("The CityJSON document has already been started.");
+
+        this.cityJSON = cityJSON != null ? cityJSON : new CityJSON();
+        buffer = new double[bufferSize * 3];
+
+        out.beginObject();
+        adapter.writeHeader(out, this.cityJSON);
+        adapter.writeGlobalProperties(out, this.cityJSON);
+
+        out.name("CityObjects");
+        out.beginObject();
+        state = State.CITY_OBJECTS;
+
+        for (AbstractCityObjectType cityObject : this.cityJSON.getCityObjects())
+            writeCityObject(cityObject);
+
+        addVertices(this.cityJSON.getVerticesList());
+    }
+
+    public void writeCityObject(AbstractCityObjectType cityObject) throws IOException {
+        if (state != State.CITY_OBJECTS)
+            throw new IllegalStateException("City objects can only be written after starting the CityJSON document.");
+
+        if (cityObject != null && isWritten(cityObject)) {
+            if (!cityObject.isSetGmlId())
+                cityObject.setGmlId(null);
+
+            out.name(cityObject.getGmlId());
+            cityObjectAdapter.write(out, cityObject);
+        }
+    }
+
+    public int addVertex(double x, double y, double z) throws IOException {
+        if (state != State.CITY_OBJECTS)
+            throw new IllegalStateException("Vertices can only be added after starting the CityJSON document.");
+
+        if (buffered == bufferSize)
+            spillVertices();
+
+        int offset = buffered * 3;
+        buffer[offset] = x;
+        buffer[offset + 1] = y;
+        buffer[offset + 2] = z;
+        buffered++;
+
+        return vertexCount++;
+    }
+
+    public int addVertex(List<Double> vertex) throws IOException {
+        if (vertex == null)
+            return addNullVertex();
+
+        if (vertex.size() != 3 || vertex.contains(null))
+            throw new IllegalArgumentException("A vertex must have three non-null coordinate values.");
+
+        return addVertex(vertex.get(0), vertex.get(1), vertex.get(2));
+    }
+
+    public int addNullVertex() throws IOException {
+        // null vertices are kept so that the indexes of subsequent vertices do not shift
+        int index = addVertex(0, 0, 0);
+        if (nullVertices == null)
+            nullVertices = new BitSet();
+
+        nullVertices.set(index);
+        return index;
+    }
+
+    public int addVertices(List<List<Double>> vertices) throws IOException {
+        int index = vertexCount;
+        if (vertices != null) {
+            for (List<Double> vertex : vertices)
+                addVertex(vertex);
+        }
+
+        return index;
+    }
+
+    public int addVertices(VerticesList vertices) throws IOException {
+        int index = vertexCount;
+        if (vertices != null) {
+            for (int i = 0; i < vertices.size(); i++) {
+                if (vertices.isNullVertex(i))
+                    addNullVertex();
+                else
+                    addVertex(vertices.getX(i), vertices.getY(i), vertices.getZ(i));
+            }
+        }
+
+        return index;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public void writeEndDocument() throws IOException {
+        if (state != State.CITY_OBJECTS)
+            throw new IllegalStateException("The CityJSON document has not been started or has already been ended.");
+
+        state = State.END;
+        out.endObject();
+
+        out.name("vertices");
+        out.beginArray();
+
+        try {
+            if (spill != null) {
+                spill.close();
+                spill = null;
+
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(tempFile)))) {
+                    for (int i = 0; i < vertexCount - buffered; i++)
+                        writeVertex(i, in.readDouble(), in.readDouble(), in.readDouble());
+                }
+            }
+
+            for (int i = 0, index = vertexCount - buffered; i < buffered; i++, index++)
+                writeVertex(index, buffer[i * 3], buffer[i * 3 + 1], buffer[i * 3 + 2]);
+        } finally {
+            deleteTempFile();
+        }
+
+        out.endArray();
+        out.endObject();
+        out.flush();
+
+        buffer = null;
+        buffered = 0;
+        nullVertices = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (state == State.CITY_OBJECTS)
+                writeEndDocument();
+        } finally {
+            deleteTempFile();
+            out.close();
+        }
+    }
+
+    private boolean isWritten(AbstractCityObjectType cityObject) {
+        // skip city objects that are rejected by the type filter
+        return !(cityObjectAdapter instanceof CityObjectTypeAdapter)
+                || ((CityObjectTypeAdapter) cityObjectAdapter).accept(cityObject);
+    }
+
+    private void writeVertex(int index, double x, double y, double z) throws IOException {
+        if (nullVertices != null && nullVertices.get(index))
+            out.nullValue();
+        else if (cityJSON.isSetTransform() && (int) x == x && (int) y == y && (int) z == z)
+            verticesAdapter.writeQuantizedVertex(out, (int) x, (int) y, (int) z);
+        else
+            verticesAdapter.writeVertex(out, x, y, z);
+    }
+
+    private void spillVertices() throws IOException {
+        if (spill == null) {
+            tempFile = tempDir != null ?
+                    Files.createTempFile(tempDir, "citygson-vertices-", ".tmp") :
+                    Files.createTempFile("citygson-vertices-", ".tmp");
+            spill = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)));
+        }
+
+        for (int i = 0; i < buffered * 3; i++)
+            spill.writeDouble(buffer[i]);
+
+        buffered = 0;
+    }
+
+    private void deleteTempFile() throws IOException {
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
+
+        if (tempFile != null) {
+            Files.deleteIfExists(tempFile);
+            tempFile = null;
+        }
+    }
+}
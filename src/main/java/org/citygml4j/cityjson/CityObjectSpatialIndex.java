@@ -0,0 +1,390 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class CityObjectSpatialIndex {
+    private static final int NODE_CAPACITY = 16;
+
+    private final CityJSON cityJSON;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Node root;
+
+    public CityObjectSpatialIndex(CityJSON cityJSON) {
+        this.cityJSON = cityJSON;
+
+        List<Item> items = new ArrayList<>();
+        for (AbstractCityObjectType cityObject : cityJSON.getCityObjects()) {
+            Entry entry = newEntry(cityObject);
+            if (entry != null) {
+                entries.put(cityObject.getGmlId(), entry);
+                items.add(entry);
+            }
+        }
+
+        root = bulkLoad(items);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public boolean contains(String gmlId) {
+        return entries.containsKey(gmlId);
+    }
+
+    public double[] getBoundingBox(String gmlId) {
+        Entry entry = entries.get(gmlId);
+        return entry != null ? entry.bounds.clone() : null;
+    }
+
+    public List<AbstractCityObjectType> query(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        List<AbstractCityObjectType> cityObjects = new ArrayList<>();
+        if (!entries.isEmpty())
+            query(root, new double[]{minX, minY, minZ, maxX, maxY, maxZ}, cityObjects);
+
+        return cityObjects;
+    }
+
+    public List<AbstractCityObjectType> query(double minX, double minY, double maxX, double maxY) {
+        return query(minX, minY, Double.NEGATIVE_INFINITY, maxX, maxY, Double.POSITIVE_INFINITY);
+    }
+
+    public List<AbstractCityObjectType> query(List<Double> bbox) {
+        if (bbox != null && bbox.size() == 6)
+            return query(bbox.get(0), bbox.get(1), bbox.get(2), bbox.get(3), bbox.get(4), bbox.get(5));
+        else if (bbox != null && bbox.size() == 4)
+            return query(bbox.get(0), bbox.get(1), bbox.get(2), bbox.get(3));
+        else
+            throw new IllegalArgumentException("A bounding box must consist of 4 or 6 values.");
+    }
+
+    public List<AbstractCityObjectType> nearest(double x, double y, double z, int k) {
+        List<AbstractCityObjectType> cityObjects = new ArrayList<>();
+        if (entries.isEmpty() || k <= 0)
+            return cityObjects;
+
+        // best-first search ordered by the minimum distance to the point
+        double[] point = {x, y, z};
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        candidates.add(new Candidate(root, 0));
+
+        while (!candidates.isEmpty() && cityObjects.size() < k) {
+            Candidate candidate = candidates.poll();
+            if (candidate.item instanceof Entry)
+                cityObjects.add(((Entry) candidate.item).cityObject);
+            else {
+                for (Item child : ((Node) candidate.item).children)
+                    candidates.add(new Candidate(child, distance(child.bounds, point)));
+            }
+        }
+
+        return cityObjects;
+    }
+
+    public boolean insert(AbstractCityObjectType cityObject) {
+        remove(cityObject.getGmlId());
+
+        Entry entry = newEntry(cityObject);
+        if (entry == null)
+            return false;
+
+        entries.put(cityObject.getGmlId(), entry);
+        Node node = root;
+        while (!node.leaf) {
+            expand(node.bounds, entry.bounds);
+            node = chooseChild(node, entry.bounds);
+        }
+
+        node.add(entry);
+        if (node.children.size() > NODE_CAPACITY)
+            split(node);
+
+        return true;
+    }
+
+    public boolean remove(AbstractCityObjectType cityObject) {
+        return remove(cityObject.getGmlId());
+    }
+
+    public boolean remove(String gmlId) {
+        Entry entry = entries.remove(gmlId);
+        if (entry == null)
+            return false;
+
+        Node node = entry.parent;
+        node.children.remove(entry);
+
+        // remove empty nodes and shrink the bounds of their ancestors
+        while (node != root && node.children.isEmpty()) {
+            Node parent = node.parent;
+            parent.children.remove(node);
+            node = parent;
+        }
+
+        for (; node != null; node = node.parent)
+            node.updateBounds();
+
+        while (!root.leaf && root.children.size() == 1) {
+            root = (Node) root.children.get(0);
+            root.parent = null;
+        }
+
+        return true;
+    }
+
+    private Entry newEntry(AbstractCityObjectType cityObject) {
+        double[] bounds = cityObject.calcBoundingBox(cityJSON.getVerticesList());
+        if (bounds == null && cityObject.isSetGeographicalExtent()) {
+            bounds = new double[6];
+            List<Double> extent = cityObject.getGeographicalExtent();
+            for (int i = 0; i < 6; i++)
+                bounds[i] = extent.get(i);
+        }
+
+        return bounds != null ? new Entry(cityObject, bounds) : null;
+    }
+
+    private void query(Node node, double[] window, List<AbstractCityObjectType> cityObjects) {
+        for (Item child : node.children) {
+            if (intersects(child.bounds, window)) {
+                if (node.leaf)
+                    cityObjects.add(((Entry) child).cityObject);
+                else
+                    query((Node) child, window, cityObjects);
+            }
+        }
+    }
+
+    private Node bulkLoad(List<? extends Item> items) {
+        if (items.isEmpty())
+            return new Node(true);
+
+        List<Node> nodes = pack(items, true);
+        while (nodes.size() > 1)
+            nodes = pack(nodes, false);
+
+        return nodes.get(0);
+    }
+
+    private List<Node> pack(List<? extends Item> items, boolean leaf) {
+        // sort-tile-recursive packing along the x, y and z axes
+        int nodeCount = (items.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = (int) Math.ceil(Math.cbrt(nodeCount));
+        int sliceSizeX = slices * slices * NODE_CAPACITY;
+        int sliceSizeY = slices * NODE_CAPACITY;
+
+        List<Item> sorted = new ArrayList<>(items);
+        sorted.sort(byCenter(0));
+
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < sorted.size(); i += sliceSizeX) {
+            List<Item> sliceX = sorted.subList(i, Math.min(i + sliceSizeX, sorted.size()));
+            sliceX.sort(byCenter(1));
+
+            for (int j = 0; j < sliceX.size(); j += sliceSizeY) {
+                List<Item> sliceY = sliceX.subList(j, Math.min(j + sliceSizeY, sliceX.size()));
+                sliceY.sort(byCenter(2));
+
+                for (int k = 0; k < sliceY.size(); k += NODE_CAPACITY) {
+                    Node node = new Node(leaf);
+                    for (Item item : sliceY.subList(k, Math.min(k + NODE_CAPACITY, sliceY.size())))
+                        node.add(item);
+
+                    nodes.add(node);
+                }
+            }
+        }
+
+        return nodes;
+    }
+
+    private Node chooseChild(Node node, double[] bounds) {
+        Node best = null;
+        double bestEnlargement = Double.MAX_VALUE, bestMargin = Double.MAX_VALUE;
+
+        // margins are used instead of volumes because flat city objects have no volume
+        for (Item child : node.children) {
+            double margin = margin(child.bounds);
+            double enlargement = margin(child.bounds, bounds) - margin;
+            if (enlargement < bestEnlargement || (enlargement == bestEnlargement && margin < bestMargin)) {
+                best = (Node) child;
+                bestEnlargement = enlargement;
+                bestMargin = margin;
+            }
+        }
+
+        return best;
+    }
+
+    private void split(Node node) {
+        // split at the median along the axis with the largest spread of centers
+        int axis = 0;
+        double maxSpread = -1;
+        for (int i = 0; i < 3; i++) {
+            double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+            for (Item child : node.children) {
+                double center = center(child.bounds, i);
+                min = Math.min(min, center);
+                max = Math.max(max, center);
+            }
+
+            if (max - min > maxSpread) {
+                maxSpread = max - min;
+                axis = i;
+            }
+        }
+
+        node.children.sort(byCenter(axis));
+        List<Item> moved = node.children.subList(node.children.size() / 2, node.children.size());
+        Node sibling = new Node(node.leaf);
+        for (Item child : moved)
+            sibling.add(child);
+
+        moved.clear();
+        node.updateBounds();
+
+        if (node == root) {
+            root = new Node(false);
+            root.add(node);
+            root.add(sibling);
+        } else {
+            Node parent = node.parent;
+            parent.add(sibling);
+            if (parent.children.size() > NODE_CAPACITY)
+                split(parent);
+        }
+    }
+
+    private static Comparator<Item> byCenter(int axis) {
+        return Comparator.comparingDouble(item -> center(item.bounds, axis));
+    }
+
+    private static double center(double[] bounds, int axis) {
+        return (bounds[axis] + bounds[axis + 3]) / 2;
+    }
+
+    private static double margin(double[] bounds) {
+        return (bounds[3] - bounds[0]) + (bounds[4] - bounds[1]) + (bounds[5] - bounds[2]);
+    }
+
+    private static double margin(double[] bounds, double[] other) {
+        double margin = 0;
+        for (int i = 0; i < 3; i++)
+            margin += Math.max(bounds[i + 3], other[i + 3]) - Math.min(bounds[i], other[i]);
+
+        return margin;
+    }
+
+    private static boolean intersects(double[] bounds, double[] window) {
+        for (int i = 0; i < 3; i++) {
+            if (bounds[i] > window[i + 3] || bounds[i + 3] < window[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static double distance(double[] bounds, double[] point) {
+        double distance = 0;
+        for (int i = 0; i < 3; i++) {
+            double delta = Math.max(Math.max(bounds[i] - point[i], point[i] - bounds[i + 3]), 0);
+            distance += delta * delta;
+        }
+
+        return distance;
+    }
+
+    private static void expand(double[] bounds, double[] other) {
+        for (int i = 0; i < 3; i++) {
+            bounds[i] = Math.min(bounds[i], other[i]);
+            bounds[i + 3] = Math.max(bounds[i + 3], other[i + 3]);
+        }
+    }
+
+    private static abstract class Item {
+        final double[] bounds;
+        Node parent;
+
+        Item(double[] bounds) {
+            this.bounds = bounds;
+        }
+    }
+
+    private static class Entry extends Item {
+        final AbstractCityObjectType cityObject;
+
+        Entry(AbstractCityObjectType cityObject, double[] bounds) {
+            super(bounds);
+            this.cityObject = cityObject;
+        }
+    }
+
+    private static class Node extends Item {
+        final boolean leaf;
+        final List<Item> children = new ArrayList<>(NODE_CAPACITY + 1);
+
+        Node(boolean leaf) {
+            super(new double[6]);
+            this.leaf = leaf;
+            updateBounds();
+        }
+
+        void add(Item item) {
+            children.add(item);
+            item.parent = this;
+            expand(bounds, item.bounds);
+        }
+
+        void updateBounds() {
+            for (int i = 0; i < 3; i++) {
+                bounds[i] = Double.POSITIVE_INFINITY;
+                bounds[i + 3] = Double.NEGATIVE_INFINITY;
+            }
+
+            for (Item child : children)
+                expand(bounds, child.bounds);
+        }
+    }
+
+    private static class Candidate {
+        final Item item;
+        final double distance;
+
+        Candidate(Item item, double distance) {
+            this.item = item;
+            this.distance = distance;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.feature.CityObjectTypeAdapter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+class LazyCityObjects extends AbstractMap<String, AbstractCityObjectType> {
+    private final CityJSONInput input;
+    private final CityJSONIndex index;
+    private final Gson gson;
+    private final CityObjectTypeAdapter unfilteredAdapter;
+    private final Map<String, AbstractCityObjectType> loaded = new HashMap<>();
+    private final Map<String, CachedCityObject> cache = new HashMap<>();
+    private final ReferenceQueue<AbstractCityObjectType> queue = new ReferenceQueue<>();
+    private final Map<String, AbstractCityObjectType> added = new LinkedHashMap<>();
+    private final BitSet removed = new BitSet();
+    private final BitSet readable = new BitSet();
+    private int removedCount;
+    private boolean validated;
+    private EntrySet entrySet;
+    private Values values;
+
+    LazyCityObjects(CityJSONInput input, CityJSONIndex index, Gson gson) {
+        this.input = input;
+        this.index = index;
+        this.gson = gson;
+
+        TypeAdapter<AbstractCityObjectType> adapter = gson.getAdapter(AbstractCityObjectType.class);
+        unfilteredAdapter = adapter instanceof CityObjectTypeAdapter && !((CityObjectTypeAdapter) adapter).isFiltering() ?
+                (CityObjectTypeAdapter) adapter :
+                null;
+    }
+
+    @Override
+    public AbstractCityObjectType get(Object key) {
+        if (added.containsKey(key))
+            return added.get(key);
+
+        int position = indexOf(key);
+        return position != -1 ? load(position) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (added.containsKey(key))
+            return true;
+
+        int position = indexOf(key);
+        return position != -1 && exists(position);
+    }
+
+    @Override
+    public AbstractCityObjectType put(String key, AbstractCityObjectType value) {
+        Objects.requireNonNull(value, "Null values are not supported.");
+        if (added.containsKey(key))
+            return added.put(key, value);
+
+        int position = indexOf(key);
+        if (position != -1) {
+            // keep the position of city objects that are replaced
+            AbstractCityObjectType previous = peek(position);
+            synchronized (loaded) {
+                if (previous == null) {
+                    removed.clear(position);
+                    removedCount--;
+                }
+
+                loaded.put(key, value);
+                cache.remove(key);
+            }
+
+            return previous;
+        }
+
+        return added.put(key, value);
+    }
+
+    @Override
+    public AbstractCityObjectType remove(Object key) {
+        if (added.containsKey(key))
+            return added.remove(key);
+
+        int position = indexOf(key);
+        if (position != -1) {
+            AbstractCityObjectType previous = peek(position);
+            remove(position);
+            return previous;
+        }
+
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        added.clear();
+        synchronized (loaded) {
+            loaded.clear();
+            cache.clear();
+            removed.set(0, index.size());
+            removedCount = index.size();
+        }
+    }
+
+    @Override
+    public int size() {
+        // city objects rejected by the adapter are only known after checking them
+        validate();
+        synchronized (loaded) {
+            return index.size() - removedCount + added.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return added.isEmpty() && nextPosition(0) == index.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, AbstractCityObjectType>> entrySet() {
+        if (entrySet == null)
+            entrySet = new EntrySet();
+
+        return entrySet;
+    }
+
+    @Override
+    public Collection<AbstractCityObjectType> values() {
+        if (values == null)
+            values = new Values();
+
+        return values;
+    }
+
+    void loadAll() {
+        // city objects are kept strongly since their vertex indexes are about to be rewritten
+        for (int position = 0; position < index.size(); position++) {
+            AbstractCityObjectType cityObject = load(position);
+            if (cityObject != null) {
+                String gmlId = index.getGmlId(position);
+                synchronized (loaded) {
+                    loaded.put(gmlId, cityObject);
+                    cache.remove(gmlId);
+                }
+            }
+        }
+
+        validated = true;
+    }
+
+    private int indexOf(Object key) {
+        int position = key instanceof String ? index.indexOf((String) key) : -1;
+        if (position != -1) {
+            synchronized (loaded) {
+                if (removed.get(position))
+                    position = -1;
+            }
+        }
+
+        return position;
+    }
+
+    private int nextPosition(int position) {
+        // skip removed city objects and city objects rejected by the adapter
+        while (true) {
+            synchronized (loaded) {
+                position = removed.nextClearBit(position);
+            }
+
+            if (position >= index.size())
+                return index.size();
+            else if (exists(position))
+                return position;
+
+            position++;
+        }
+    }
+
+    private void remove(int position) {
+        synchronized (loaded) {
+            if (!removed.get(position)) {
+                removed.set(position);
+                removedCount++;
+            }
+
+            String gmlId = index.getGmlId(position);
+            loaded.remove(gmlId);
+            cache.remove(gmlId);
+        }
+    }
+
+    private void validate() {
+        if (!validated) {
+            for (int position = 0; position < index.size(); position++)
+                exists(position);
+
+            validated = true;
+        }
+    }
+
+    private boolean exists(int position) {
+        if (unfilteredAdapter == null)
+            return peek(position) != null;
+
+        // without filters, the adapter only rejects city objects because of their type
+        synchronized (loaded) {
+            if (getLoaded(index.getGmlId(position)) != null)
+                return true;
+            else if (removed.get(position))
+                return false;
+            else if (readable.get(position))
+                return true;
+        }
+
+        String type = index.hasBoundingBoxes() ?
+                index.getType(position) :
+                input.readCityObjectType(index, position, gson);
+
+        if (unfilteredAdapter.isReadable(type)) {
+            synchronized (loaded) {
+                readable.set(position);
+            }
+
+            return true;
+        }
+
+        remove(position);
+        return false;
+    }
+
+    private AbstractCityObjectType peek(int position) {
+        // parse the city object without keeping it unless it has already been handed out
+        String gmlId = index.getGmlId(position);
+        synchronized (loaded) {
+            AbstractCityObjectType cityObject = getLoaded(gmlId);
+            if (cityObject != null)
+                return cityObject;
+            else if (removed.get(position))
+                return null;
+        }
+
+        AbstractCityObjectType cityObject = input.readCityObject(index, position, gson);
+        if (cityObject == null) {
+            // drop city objects that have been rejected by the adapter
+            remove(position);
+        }
+
+        return cityObject;
+    }
+
+    private AbstractCityObjectType load(int position) {
+        return handOut(position, peek(position));
+    }
+
+    private AbstractCityObjectType handOut(int position, AbstractCityObjectType cityObject) {
+        // handed out city objects are cached softly so that changes are kept as long as they are referenced
+        String gmlId = index.getGmlId(position);
+        synchronized (loaded) {
+            AbstractCityObjectType previous = getLoaded(gmlId);
+            if (previous != null)
+                return previous;
+            else if (cityObject != null && !removed.get(position)) {
+                expungeCleared();
+                cache.put(gmlId, new CachedCityObject(gmlId, cityObject, queue));
+            }
+        }
+
+        return cityObject;
+    }
+
+    private AbstractCityObjectType getLoaded(String gmlId) {
+        AbstractCityObjectType cityObject = loaded.get(gmlId);
+        if (cityObject == null) {
+            CachedCityObject cached = cache.get(gmlId);
+            if (cached != null)
+                cityObject = cached.get();
+        }
+
+        return cityObject;
+    }
+
+    private void expungeCleared() {
+        for (Reference<? extends AbstractCityObjectType> reference; (reference = queue.poll()) != null; ) {
+            CachedCityObject cached = (CachedCityObject) reference;
+            cache.remove(cached.gmlId, cached);
+        }
+    }
+
+    private static class CachedCityObject extends SoftReference<AbstractCityObjectType> {
+        private final String gmlId;
+
+        CachedCityObject(String gmlId, AbstractCityObjectType cityObject, ReferenceQueue<AbstractCityObjectType> queue) {
+            super(cityObject, queue);
+            this.gmlId = gmlId;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, AbstractCityObjectType>> {
+
+        @Override
+        public Iterator<Map.Entry<String, AbstractCityObjectType>> iterator() {
+            return new Iterator<Map.Entry<String, AbstractCityObjectType>>() {
+                private final Iterator<Map.Entry<String, AbstractCityObjectType>> iterator = added.entrySet().iterator();
+                private int next = -1;
+                private AbstractCityObjectType nextValue;
+                private int current = -1;
+                private boolean fromIndex;
+
+                {
+                    advance(0);
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < index.size() || iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<String, AbstractCityObjectType> next() {
+                    if (next < index.size()) {
+                        Entry entry = new Entry(next, nextValue);
+                        current = next;
+                        advance(next + 1);
+                        fromIndex = true;
+                        return entry;
+                    }
+
+                    fromIndex = false;
+                    current = -1;
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove() {
+                    if (!fromIndex)
+                        iterator.remove();
+                    else if (current != -1 && indexOf(index.getGmlId(current)) != -1) {
+                        LazyCityObjects.this.remove(current);
+                        current = -1;
+                    } else
+                        throw new IllegalStateException();
+                }
+
+                private void advance(int position) {
+                    // keep the parsed city object so that it is not parsed again when handed out
+                    for (next = position; ; next++) {
+                        synchronized (loaded) {
+                            next = removed.nextClearBit(next);
+                        }
+
+                        if (next >= index.size()) {
+                            next = index.size();
+                            nextValue = null;
+                            break;
+                        } else if ((nextValue = peek(next)) != null)
+                            break;
+                    }
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return LazyCityObjects.this.size();
+        }
+    }
+
+    private class Values extends AbstractCollection<AbstractCityObjectType> {
+
+        @Override
+        public Iterator<AbstractCityObjectType> iterator() {
+            return new Iterator<AbstractCityObjectType>() {
+                private final Iterator<Map.Entry<String, AbstractCityObjectType>> iterator = entrySet().iterator();
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public AbstractCityObjectType next() {
+                    return iterator.next().getValue();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return LazyCityObjects.this.size();
+        }
+
+        @Override
+        public Object[] toArray() {
+            // avoid parsing all city objects twice to determine the size
+            List<AbstractCityObjectType> cityObjects = new ArrayList<>();
+            forEach(cityObjects::add);
+            return cityObjects.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            List<AbstractCityObjectType> cityObjects = new ArrayList<>();
+            forEach(cityObjects::add);
+            return cityObjects.toArray(a);
+        }
+    }
+
+    private class Entry implements Map.Entry<String, AbstractCityObjectType> {
+        private final int position;
+        private final AbstractCityObjectType cityObject;
+
+        Entry(int position, AbstractCityObjectType cityObject) {
+            this.position = position;
+            this.cityObject = cityObject;
+        }
+
+        @Override
+        public String getKey() {
+            return index.getGmlId(position);
+        }
+
+        @Override
+        public AbstractCityObjectType getValue() {
+            return handOut(position, cityObject);
+        }
+
+        @Override
+        public AbstractCityObjectType setValue(AbstractCityObjectType value) {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+    }
+}
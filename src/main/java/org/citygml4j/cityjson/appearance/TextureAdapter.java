@@ -23,10 +23,10 @@ package org.citygml4j.cityjson.appearance;
 
 import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
-import com.google.gson.internal.Streams;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import org.citygml4j.cityjson.util.StringPool;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -35,20 +35,27 @@ import java.util.Map;
 public class TextureAdapter<T extends AbstractTextureObject> extends TypeAdapter<Map<String, T>> {
     private final Gson gson;
     private final Class<T> typeOfT;
+    private StringPool stringPool;
 
     public TextureAdapter(Gson gson, Class<T> typeOfT) {
         this.gson = gson;
         this.typeOfT = typeOfT;
     }
 
+    public TextureAdapter<T> withStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
+    }
+
     @Override
     public void write(JsonWriter out, Map<String, T> value) throws IOException {
         if (value != null) {
+            TypeAdapter<T> adapter = gson.getAdapter(typeOfT);
             out.beginObject();
 
             for (Map.Entry<String, T> entry : value.entrySet()) {
                 out.name(entry.getKey());
-                Streams.write(gson.toJsonTree(entry.getValue(), typeOfT), out);
+                adapter.write(out, entry.getValue());
             }
 
             out.endObject();
@@ -66,6 +73,9 @@ public class TextureAdapter<T extends AbstractTextureObject> extends TypeAdapter
 
             while (in.hasNext()) {
                 String theme = in.nextName();
+                if (stringPool != null)
+                    theme = stringPool.intern(theme);
+
                 T material = gson.fromJson(in, typeOfT);
                 material.theme = theme;
                 textures.put(theme, material);
@@ -22,6 +22,9 @@ package org.citygml4j.cityjson.feature;
 
 import org.citygml4j.cityjson.geometry.GeometryTypeName;
 
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
 public abstract class AbstractBuildingType extends AbstractCityObjectType {
     private AddressType address;
 
@@ -54,6 +57,29 @@ public abstract class AbstractBuildingType extends AbstractCityObjectType {
         this.address = address;
     }
 
+    @Override
+    public void forEachVertexIndex(IntConsumer action) {
+        super.forEachVertexIndex(action);
+        if (address != null && address.isSetLocation())
+            address.getLocation().forEachVertexIndex(action);
+    }
+
+    @Override
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        super.updateIndexes(indexMapping);
+        if (address != null && address.isSetLocation())
+            address.getLocation().updateIndexes(indexMapping);
+    }
+
+    @Override
+    public AbstractBuildingType clone() {
+        AbstractBuildingType copy = (AbstractBuildingType) super.clone();
+        if (address != null)
+            copy.address = address.clone();
+
+        return copy;
+    }
+
     @Override
     public boolean isValidGeometryType(GeometryTypeName type) {
         return type == GeometryTypeName.MULTI_SURFACE
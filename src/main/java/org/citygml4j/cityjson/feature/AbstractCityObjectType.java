@@ -24,10 +24,13 @@ import org.citygml4j.cityjson.extension.ExtensibleType;
 import org.citygml4j.cityjson.extension.Extension;
 import org.citygml4j.cityjson.geometry.AbstractGeometryType;
 import org.citygml4j.cityjson.geometry.GeometryTypeName;
+import org.citygml4j.cityjson.geometry.VerticesList;
 
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
-public abstract class AbstractCityObjectType implements ExtensibleType, Extension {
+public abstract class AbstractCityObjectType implements ExtensibleType, Extension, Cloneable {
     String type;
     Attributes attributes;
     private List<Double> geographicalExtent;
@@ -84,7 +87,7 @@ public abstract class AbstractCityObjectType implements ExtensibleType, Extensio
     }
 
     public boolean isSetGeographicalExtent() {
-        return geographicalExtent != null && geographicalExtent.size() >= 6;
+        return isComplete(geographicalExtent);
     }
 
     public List<Double> getGeographicalExtent() {
@@ -102,6 +105,60 @@ public abstract class AbstractCityObjectType implements ExtensibleType, Extensio
         geographicalExtent = null;
     }
 
+    static boolean isComplete(List<Double> extent) {
+        // an extent with missing values is treated as no extent
+        return extent != null && extent.size() >= 6 && !extent.subList(0, 6).contains(null);
+    }
+
+    public double[] calcBoundingBox(VerticesList vertices) {
+        double[] bbox = {Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+        for (AbstractGeometryType geometry : this.geometry) {
+            geometry.forEachVertexIndex(index -> {
+                if (index >= 0 && index < vertices.size() && !vertices.isNullVertex(index)) {
+                    double x = vertices.getWorldX(index);
+                    double y = vertices.getWorldY(index);
+                    double z = vertices.getWorldZ(index);
+
+                    if (!(x >= bbox[0])) bbox[0] = x;
+                    if (!(y >= bbox[1])) bbox[1] = y;
+                    if (!(z >= bbox[2])) bbox[2] = z;
+                    if (!(x <= bbox[3])) bbox[3] = x;
+                    if (!(y <= bbox[4])) bbox[4] = y;
+                    if (!(z <= bbox[5])) bbox[5] = z;
+                }
+            });
+        }
+
+        return !Double.isNaN(bbox[0]) ? bbox : null;
+    }
+
+    public void forEachVertexIndex(IntConsumer action) {
+        for (AbstractGeometryType geometry : this.geometry)
+            geometry.forEachVertexIndex(action);
+    }
+
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        for (AbstractGeometryType geometry : this.geometry)
+            geometry.updateIndexes(indexMapping);
+    }
+
+    @Override
+    public AbstractCityObjectType clone() {
+        // the geometries are copied so that the clone can be re-indexed, all other members are shared
+        try {
+            AbstractCityObjectType copy = (AbstractCityObjectType) super.clone();
+            if (geometry != null) {
+                copy.geometry = new ArrayList<>(geometry.size());
+                for (AbstractGeometryType geometry : this.geometry)
+                    copy.geometry.add(geometry.clone());
+            }
+
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     public boolean isSetChildren() {
         return children != null && !children.isEmpty();
     }
@@ -22,7 +22,7 @@ package org.citygml4j.cityjson.feature;
 
 import org.citygml4j.cityjson.geometry.MultiPointType;
 
-public class AddressType {
+public class AddressType implements Cloneable {
     private String CountryName;
     private String LocalityName;
     private String ThoroughfareNumber;
@@ -126,4 +126,16 @@ public class AddressType {
         location = null;
     }
 
+    @Override
+    public AddressType clone() {
+        try {
+            AddressType copy = (AddressType) super.clone();
+            if (location != null)
+                copy.location = location.clone();
+
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citygml4j.cityjson.feature;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CityObjectLoDFilter {
+    private final Set<Double> lods = new HashSet<>();
+    private double maximumLoD = Double.POSITIVE_INFINITY;
+    private boolean highestLoDOnly;
+    private boolean trimVertices;
+
+    public CityObjectLoDFilter withLoDs(Number... lods) {
+        for (Number lod : lods) {
+            if (lod != null)
+                this.lods.add(lod.doubleValue());
+        }
+
+        return this;
+    }
+
+    public CityObjectLoDFilter withMaximumLoD(Number maximumLoD) {
+        this.maximumLoD = maximumLoD != null ? maximumLoD.doubleValue() : Double.POSITIVE_INFINITY;
+        return this;
+    }
+
+    public CityObjectLoDFilter highestLoDOnly(boolean highestLoDOnly) {
+        this.highestLoDOnly = highestLoDOnly;
+        return this;
+    }
+
+    public CityObjectLoDFilter trimVertices(boolean trimVertices) {
+        this.trimVertices = trimVertices;
+        return this;
+    }
+
+    public Set<Double> getLoDs() {
+        return Collections.unmodifiableSet(lods);
+    }
+
+    public double getMaximumLoD() {
+        return maximumLoD;
+    }
+
+    public boolean isHighestLoDOnly() {
+        return highestLoDOnly;
+    }
+
+    public boolean isTrimVertices() {
+        return trimVertices;
+    }
+
+    public boolean accept(Number lod) {
+        double value = lod != null ? lod.doubleValue() : 0;
+        return value <= maximumLoD && (lods.isEmpty() || lods.contains(value));
+    }
+}
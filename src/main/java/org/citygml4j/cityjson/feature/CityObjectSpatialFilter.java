@@ -0,0 +1,81 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citygml4j.cityjson.feature;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CityObjectSpatialFilter {
+    private final double[] window;
+    private boolean trimVertices;
+
+    public CityObjectSpatialFilter(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        window = new double[]{minX, minY, minZ, maxX, maxY, maxZ};
+    }
+
+    public CityObjectSpatialFilter(double minX, double minY, double maxX, double maxY) {
+        this(minX, minY, Double.NEGATIVE_INFINITY, maxX, maxY, Double.POSITIVE_INFINITY);
+    }
+
+    public CityObjectSpatialFilter(List<Double> bbox) {
+        if (bbox != null && bbox.size() == 6)
+            window = new double[]{bbox.get(0), bbox.get(1), bbox.get(2), bbox.get(3), bbox.get(4), bbox.get(5)};
+        else if (bbox != null && bbox.size() == 4)
+            window = new double[]{bbox.get(0), bbox.get(1), Double.NEGATIVE_INFINITY, bbox.get(2), bbox.get(3), Double.POSITIVE_INFINITY};
+        else
+            throw new IllegalArgumentException("A bounding box must consist of 4 or 6 values.");
+    }
+
+    public CityObjectSpatialFilter trimVertices(boolean trimVertices) {
+        this.trimVertices = trimVertices;
+        return this;
+    }
+
+    public boolean isTrimVertices() {
+        return trimVertices;
+    }
+
+    public List<Double> getBoundingBox() {
+        return Arrays.asList(window[0], window[1], window[2], window[3], window[4], window[5]);
+    }
+
+    public boolean accept(double[] bbox) {
+        for (int i = 0; i < 3; i++) {
+            if (bbox[i] > window[i + 3] || bbox[i + 3] < window[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    public boolean accept(List<Double> extent) {
+        // an incomplete extent is treated as no extent, so the city object is filtered by its vertices instead
+        if (!AbstractCityObjectType.isComplete(extent))
+            return true;
+
+        for (int i = 0; i < 3; i++) {
+            if (extent.get(i) > window[i + 3] || extent.get(i + 3) < window[i])
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -22,19 +22,29 @@ package org.citygml4j.cityjson.feature;
 
 import com.google.gson.*;
 import com.google.gson.internal.Streams;
+import com.google.gson.internal.bind.JsonTreeReader;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import org.citygml4j.cityjson.CityJSONProjection;
 import org.citygml4j.cityjson.CityJSONRegistry;
+import org.citygml4j.cityjson.CityJSONRegistrySnapshot;
+import org.citygml4j.cityjson.geometry.AbstractGeometryObjectType;
+import org.citygml4j.cityjson.geometry.AbstractGeometryType;
+import org.citygml4j.cityjson.geometry.GeometryTypeAdapter;
+import org.citygml4j.cityjson.util.MergingJsonWriter;
 import org.citygml4j.cityjson.util.PropertyHelper;
+import org.citygml4j.cityjson.util.StringPool;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CityObjectTypeAdapter extends TypeAdapter<AbstractCityObjectType> {
     public static final String UNKNOWN_EXTENSION = "org.citygml4j.unknownExtension";
@@ -43,137 +53,379 @@ public class CityObjectTypeAdapter extends TypeAdapter<AbstractCityObjectType> {
     private final TypeAdapterFactory factory;
     private final CityObjectTypeFilter typeFilter;
     private final boolean processUnknownExtensions;
-
-    private final CityJSONRegistry registry = CityJSONRegistry.getInstance();
-    private final Map<String, List<String>> predefinedProperties = new HashMap<>();
-    private final PropertyHelper propertyHelper = new PropertyHelper();
+    private CityObjectSpatialFilter spatialFilter;
+    private CityObjectAttributesFilter attributesFilter;
+    private CityObjectLoDFilter lodFilter;
+    private CityJSONProjection projection;
+    private CityJSONRegistrySnapshot registry;
+    private PropertyHelper propertyHelper = new PropertyHelper();
+    private StringPool stringPool;
+
+    private final CityJSONRegistry globalRegistry = CityJSONRegistry.getInstance();
+    private final TypeAdapter<Object> objectAdapter;
+    private final TypeAdapter<List<Double>> extentAdapter;
+    private final Map<Class<?>, TypeAdapter<?>> delegates = new ConcurrentHashMap<>();
+    private final Map<Class<?>, TypeAdapter<?>> adapters = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Class<? extends Attributes>> attributesClasses = new ConcurrentHashMap<>();
 
     public CityObjectTypeAdapter(Gson gson, CityObjectTypeFilter typeFilter, boolean processUnknownExtensions, TypeAdapterFactory factory) {
         this.gson = gson;
         this.typeFilter = typeFilter;
         this.processUnknownExtensions = processUnknownExtensions;
         this.factory = factory;
+
+        objectAdapter = gson.getAdapter(Object.class);
+        extentAdapter = gson.getAdapter(new TypeToken<List<Double>>() {
+        });
     }
 
     public CityObjectTypeAdapter(Gson gson, TypeAdapterFactory factory) {
         this(gson, null, false, factory);
     }
 
-    @SuppressWarnings("unchecked")
-    @Override
-    public void write(JsonWriter out, AbstractCityObjectType value) throws IOException {
-        if (value != null) {
-            if (value.type == null)
-                value.type = CityJSONRegistry.getInstance().getCityObjectType(value);
+    public CityObjectTypeAdapter withSpatialFilter(CityObjectSpatialFilter spatialFilter) {
+        this.spatialFilter = spatialFilter;
+        return this;
+    }
 
-            if (typeFilter != null && !typeFilter.accept(value.type))
-                return;
+    public CityObjectTypeAdapter withAttributesFilter(CityObjectAttributesFilter attributesFilter) {
+        this.attributesFilter = attributesFilter;
+        return this;
+    }
 
-            TypeAdapter<AbstractCityObjectType> delegate = (TypeAdapter<AbstractCityObjectType>) gson.getDelegateAdapter(factory, TypeToken.get(value.getClass()));
-            JsonElement element = delegate.toJsonTree(value);
+    public CityObjectTypeAdapter withLoDFilter(CityObjectLoDFilter lodFilter) {
+        this.lodFilter = lodFilter;
+        return this;
+    }
 
-            if (element != null && element.isJsonObject()) {
-                JsonObject result = element.getAsJsonObject();
+    public CityObjectTypeAdapter withProjection(CityJSONProjection projection) {
+        this.projection = projection;
+        return this;
+    }
 
-                // serialize extension properties
-                if (value.isSetExtensionProperties()) {
-                    JsonObject properties = gson.toJsonTree(value.getExtensionProperties()).getAsJsonObject();
-                    for (Map.Entry<String, JsonElement> entry : properties.entrySet())
-                        result.add(entry.getKey(), entry.getValue());
-                }
+    public CityObjectTypeAdapter withRegistry(CityJSONRegistrySnapshot registry) {
+        this.registry = registry;
+        return this;
+    }
 
-                if (value.attributes != null) {
-                    JsonObject object = result.getAsJsonObject("attributes");
+    public CityObjectTypeAdapter withPropertyHelper(PropertyHelper propertyHelper) {
+        if (propertyHelper != null)
+            this.propertyHelper = propertyHelper;
 
-                    // serialize extension attributes
-                    if (value.attributes.isSetExtensionAttributes()) {
-                        JsonObject attributes = gson.toJsonTree(value.attributes.getExtensionAttributes()).getAsJsonObject();
-                        for (Map.Entry<String, JsonElement> entry : attributes.entrySet())
-                            object.add(entry.getKey(), entry.getValue());
-                    }
+        return this;
+    }
 
-                    // remove empty attributes
-                    if (object.entrySet().isEmpty() || object.entrySet().stream().allMatch(e -> e.getValue().isJsonNull()))
-                        result.getAsJsonObject().remove("attributes");
-                }
-            }
+    public CityObjectTypeAdapter withStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
+    }
+
+    public boolean isFiltering() {
+        return typeFilter != null || spatialFilter != null || attributesFilter != null;
+    }
+
+    public boolean isReadable(String type) {
+        // city objects without a type or of an unknown type are skipped
+        return type != null && (processUnknownExtensions || getRegistry().getCityObjectClass(type) != null);
+    }
+
+    public boolean accept(AbstractCityObjectType value) {
+        if (value.type == null)
+            value.type = getRegistry().getCityObjectType(value.getClass());
+
+        return typeFilter == null || typeFilter.accept(value.type);
+    }
 
-            Streams.write(element, out);
+    @Override
+    public void write(JsonWriter out, AbstractCityObjectType value) throws IOException {
+        if (value != null) {
+            // nothing is written for city objects rejected by the type filter
+            if (!accept(value))
+                return;
+
+            // serialize extension properties and attributes, and remove empty attributes
+            MergingJsonWriter writer = new MergingJsonWriter(out, value.getExtensionProperties(), objectAdapter)
+                    .withMergedMember("attributes", value.attributes != null ?
+                            value.attributes.getExtensionAttributes() :
+                            null);
+
+            getDelegate(value.getClass()).write(writer, value);
         } else
             out.nullValue();
     }
 
     @Override
     public AbstractCityObjectType read(JsonReader in) throws IOException {
-        if (in.peek() != JsonToken.NULL) {
-            JsonObject object = Streams.parse(in).getAsJsonObject();
-            JsonElement type = object.get("type");
-
-            if (type != null) {
-                Class<? extends AbstractCityObjectType> typeOf = registry.getCityObjectClass(type.getAsString());
-
-                // map unknown extensions to generic city objects
-                boolean unknownExtension = false;
-                if (typeOf == null && processUnknownExtensions) {
-                    typeOf = GenericCityObjectType.class;
-                    unknownExtension = true;
-                }
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        in.beginObject();
+
+        // buffer properties until the type is known
+        Map<String, JsonElement> buffer = null;
+        String type = null;
+        while (in.hasNext()) {
+            String key = in.nextName();
+            if ("type".equals(key) && in.peek() != JsonToken.NULL) {
+                type = intern(in.nextString());
+                break;
+            }
+
+            if (isSkipped(key)) {
+                in.skipValue();
+                continue;
+            }
+
+            if (buffer == null)
+                buffer = new LinkedHashMap<>();
 
-                if (typeOf != null && (typeFilter == null || typeFilter.accept(type.getAsString()))) {
-                    AbstractCityObjectType cityObject = gson.getDelegateAdapter(factory, TypeToken.get(typeOf)).fromJsonTree(object);
-                    cityObject.type = type.getAsString();
+            buffer.put(key, Streams.parse(in));
+        }
 
-                    // deserialize extension properties
-                    Map<String, Object> extensionProperties = deserialize(object.entrySet(), typeOf, cityObject);
-                    if (!extensionProperties.isEmpty())
-                        cityObject.setExtensionProperties(extensionProperties);
+        AbstractCityObjectType cityObject = null;
+        if (type != null) {
+            Class<? extends AbstractCityObjectType> typeOf = getRegistry().getCityObjectClass(type);
 
-                    if (cityObject.attributes != null) {
-                        JsonObject attributes = object.get("attributes").getAsJsonObject();
+            // map unknown extensions to generic city objects
+            boolean unknownExtension = false;
+            if (typeOf == null && processUnknownExtensions) {
+                typeOf = GenericCityObjectType.class;
+                unknownExtension = true;
+            }
 
-                        Class<? extends Attributes> attributesClass = cityObject.getAttributesClass();
-                        if (attributesClass != Attributes.class)
-                            cityObject.attributes = gson.fromJson(attributes, attributesClass);
+            if (typeOf != null && (typeFilter == null || typeFilter.accept(type))) {
+                Members members = new Members(typeOf);
+                members.object.addProperty("type", type);
 
-                        // deserialize extension attributes
-                        Map<String, Object> extensionAttributes = deserialize(attributes.entrySet(), attributesClass, cityObject);
-                        if (!extensionAttributes.isEmpty())
-                            cityObject.attributes.setExtensionAttributes(extensionAttributes);
+                boolean accepted = true;
+                if (buffer != null) {
+                    for (Map.Entry<String, JsonElement> entry : buffer.entrySet()) {
+                        if (!(accepted = readProperty(entry.getKey(), new JsonTreeReader(entry.getValue()), members)))
+                            break;
                     }
+                }
+
+                // stop reading as soon as the city object is rejected by a filter
+                while (accepted && in.hasNext())
+                    accepted = readProperty(in.nextName(), in, members);
+
+                // filter city objects without attributes like city objects with empty attributes
+                if (accepted && attributesFilter != null && members.attributes == null)
+                    accepted = attributesFilter.accept(getAdapter(getAttributesClass(typeOf)).fromJsonTree(new JsonObject()));
+
+                if (accepted) {
+                    cityObject = getDelegate(typeOf).fromJsonTree(members.object);
+                    cityObject.type = type;
+
+                    // drop members that have only been read for filtering
+                    if (members.hasAttributes && (projection == null || !projection.isSkipCityObjectMember("attributes")))
+                        cityObject.attributes = members.attributes;
+                    if (members.geometry != null)
+                        cityObject.getGeometry().addAll(members.geometry);
+                    if (projection != null && projection.isSkipCityObjectMember("geographicalExtent"))
+                        cityObject.unsetGeographicalExtent();
+                    if (members.extensionProperties != null)
+                        cityObject.setExtensionProperties(members.extensionProperties);
+
+                    if (lodFilter != null && lodFilter.isHighestLoDOnly())
+                        retainHighestLoD(cityObject);
 
                     if (unknownExtension)
                         cityObject.setLocalProperty(UNKNOWN_EXTENSION, true);
+                }
+            }
+        }
+
+        while (in.hasNext()) {
+            in.nextName();
+            in.skipValue();
+        }
+
+        in.endObject();
+        return cityObject;
+    }
+
+    private boolean isSkipped(String key) {
+        if (projection == null || !projection.isSkipCityObjectMember(key))
+            return false;
 
-                    return cityObject;
+        // filtered members must still be read
+        return !("attributes".equals(key) && attributesFilter != null)
+                && !("geographicalExtent".equals(key) && spatialFilter != null);
+    }
+
+    private boolean readProperty(String key, JsonReader in, Members members) throws IOException {
+        if (isSkipped(key) || "type".equals(key))
+            in.skipValue();
+        else if ("attributes".equals(key)) {
+            members.attributes = readAttributes(in, members.typeOf);
+            members.hasAttributes = true;
+            return attributesFilter == null || attributesFilter.accept(members.attributes != null ?
+                    members.attributes :
+                    getAdapter(getAttributesClass(members.typeOf)).fromJsonTree(new JsonObject()));
+        } else if ("geometry".equals(key)) {
+            members.geometry = readGeometry(in);
+        } else if (propertyHelper.isPredefinedProperty(key, members.typeOf)) {
+            JsonElement value = Streams.parse(in);
+            members.object.add(key, value);
+            if ("geographicalExtent".equals(key) && spatialFilter != null)
+                return spatialFilter.accept(extentAdapter.fromJsonTree(value));
+        } else {
+            // deserialize extension properties
+            Object value = readExtensionProperty(key, in, members.typeOf);
+            if (value != null) {
+                if (members.extensionProperties == null)
+                    members.extensionProperties = new HashMap<>();
+
+                members.extensionProperties.put(intern(key), value);
+            }
+        }
+
+        return true;
+    }
+
+    private List<AbstractGeometryType> readGeometry(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        TypeAdapter<AbstractGeometryType> adapter = gson.getAdapter(AbstractGeometryType.class);
+        List<AbstractGeometryType> geometries = new ArrayList<>();
+
+        in.beginArray();
+        while (in.hasNext()) {
+            AbstractGeometryType geometry = adapter instanceof GeometryTypeAdapter ?
+                    ((GeometryTypeAdapter) adapter).read(in, lodFilter) :
+                    adapter.read(in);
+
+            // geometry instances inherit the lod of their template and are always kept
+            if (lodFilter == null || (geometry != null && (!(geometry instanceof AbstractGeometryObjectType)
+                    || lodFilter.accept(((AbstractGeometryObjectType) geometry).getLod()))))
+                geometries.add(geometry);
+        }
+
+        in.endArray();
+        return geometries;
+    }
+
+    private void retainHighestLoD(AbstractCityObjectType cityObject) {
+        double highestLoD = Double.NEGATIVE_INFINITY;
+        for (AbstractGeometryType geometry : cityObject.getGeometry()) {
+            if (geometry instanceof AbstractGeometryObjectType)
+                highestLoD = Math.max(highestLoD, getLoD((AbstractGeometryObjectType) geometry));
+        }
+
+        double lod = highestLoD;
+        cityObject.getGeometry().removeIf(geometry -> geometry instanceof AbstractGeometryObjectType
+                && getLoD((AbstractGeometryObjectType) geometry) < lod);
+    }
+
+    private double getLoD(AbstractGeometryObjectType geometry) {
+        return geometry.isSetLod() ? geometry.getLod().doubleValue() : 0;
+    }
+
+    private Attributes readAttributes(JsonReader in, Class<? extends AbstractCityObjectType> typeOf) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Class<? extends Attributes> attributesClass = getAttributesClass(typeOf);
+        JsonObject object = new JsonObject();
+        Map<String, Object> extensionAttributes = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            if (propertyHelper.isPredefinedProperty(key, attributesClass)) {
+                JsonElement value = Streams.parse(in);
+
+                // codes such as function or class are repeated across city objects
+                if (stringPool != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isString())
+                    value = new JsonPrimitive(stringPool.intern(value.getAsString()));
+
+                object.add(key, value);
+            } else {
+                // deserialize extension attributes
+                Object value = readExtensionProperty(key, in, typeOf);
+                if (value != null) {
+                    if (extensionAttributes == null)
+                        extensionAttributes = new LinkedHashMap<>();
+
+                    extensionAttributes.put(intern(key), value);
                 }
             }
         }
 
-        return null;
+        in.endObject();
+
+        Attributes attributes = getAdapter(attributesClass).fromJsonTree(object);
+        if (extensionAttributes != null) {
+            for (Map.Entry<String, Object> entry : extensionAttributes.entrySet())
+                attributes.addExtensionAttribute(entry.getKey(), entry.getValue());
+        }
+
+        return attributes;
+    }
+
+    private Object readExtensionProperty(String key, JsonReader in, Class<? extends AbstractCityObjectType> typeOf) throws IOException {
+        // check whether we found a registered extension property
+        Type extensionAttributeType = getRegistry().getExtensionProperties(typeOf).get(key);
+        return extensionAttributeType != null ?
+                gson.fromJson(in, extensionAttributeType) :
+                propertyHelper.deserialize(in);
     }
 
-    private Map<String, Object> deserialize(Set<Map.Entry<String, JsonElement>> entrySet, Class<?> typeClass, AbstractCityObjectType cityObject) {
-        Map<String, Object> properties = new HashMap<>();
-        List<String> predefined = predefinedProperties.computeIfAbsent(
-                typeClass.getTypeName(),
-                v -> propertyHelper.getDeclaredProperties(typeClass));
+    private String intern(String value) {
+        return stringPool != null ? stringPool.intern(value) : value;
+    }
 
-        for (Map.Entry<String, JsonElement> entry : entrySet) {
-            // skip properties defined by the type class
-            String key = entry.getKey();
-            if (predefined.contains(key))
-                continue;
+    private CityJSONRegistrySnapshot getRegistry() {
+        // follow the global registry unless a snapshot has been bound
+        return registry != null ? registry : globalRegistry.snapshot();
+    }
+
+    private Class<? extends Attributes> getAttributesClass(Class<? extends AbstractCityObjectType> typeOf) {
+        // ask a prototype only once per class
+        return attributesClasses.computeIfAbsent(typeOf, v -> getDelegate(typeOf).fromJsonTree(new JsonObject()).getAttributesClass());
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<AbstractCityObjectType> getDelegate(Class<?> type) {
+        // resolve the delegate only once per class instead of walking the factories for every city object
+        TypeAdapter<?> delegate = delegates.get(type);
+        if (delegate == null) {
+            delegate = gson.getDelegateAdapter(factory, TypeToken.get(type));
+            delegates.putIfAbsent(type, delegate);
+        }
 
-            // check whether we found a registered extension property
-            Type extensionAttributeType = registry.getExtensionPropertyClass(entry.getKey(), cityObject);
-            Object value = extensionAttributeType != null ?
-                    gson.fromJson(entry.getValue(), extensionAttributeType) :
-                    propertyHelper.deserialize(entry.getValue());
+        return (TypeAdapter<AbstractCityObjectType>) delegate;
+    }
 
-            if (value != null)
-                properties.put(key, value);
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<Attributes> getAdapter(Class<? extends Attributes> type) {
+        TypeAdapter<?> adapter = adapters.get(type);
+        if (adapter == null) {
+            adapter = gson.getAdapter(type);
+            adapters.putIfAbsent(type, adapter);
         }
 
-        return properties;
+        return (TypeAdapter<Attributes>) adapter;
+    }
+
+    private static class Members {
+        final Class<? extends AbstractCityObjectType> typeOf;
+        final JsonObject object = new JsonObject();
+        Attributes attributes;
+        boolean hasAttributes;
+        List<AbstractGeometryType> geometry;
+        Map<String, Object> extensionProperties;
+
+        Members(Class<? extends AbstractCityObjectType> typeOf) {
+            this.typeOf = typeOf;
+        }
     }
 }
@@ -21,31 +21,72 @@
 package org.citygml4j.cityjson.feature;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
 import com.google.gson.TypeAdapter;
-import com.google.gson.internal.Streams;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import org.citygml4j.cityjson.util.JsonWriterHelper;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class CityObjectsAdapter extends TypeAdapter<Map<String, AbstractCityObjectType>> {
+    private static final int BATCH_SIZE = 256;
+
     private final Gson gson;
+    private final ForkJoinPool readPool;
+    private final ForkJoinPool writePool;
+    private final JsonWriterHelper writerHelper = new JsonWriterHelper();
 
-    public CityObjectsAdapter(Gson gson) {
+    public CityObjectsAdapter(Gson gson, ForkJoinPool readPool, ForkJoinPool writePool) {
         this.gson = gson;
+        this.readPool = readPool;
+        this.writePool = writePool;
+    }
+
+    public CityObjectsAdapter(Gson gson) {
+        this(gson, null, null);
+    }
+
+    public boolean isReadInParallel() {
+        return readPool != null;
+    }
+
+    public ForkJoinPool getReadPool() {
+        return readPool;
+    }
+
+    public boolean isWriteInParallel() {
+        return writePool != null;
+    }
+
+    public ForkJoinPool getWritePool() {
+        return writePool;
     }
 
     @Override
     public void write(JsonWriter out, Map<String, AbstractCityObjectType> value) throws IOException {
         if (value != null) {
+            TypeAdapter<AbstractCityObjectType> adapter = gson.getAdapter(AbstractCityObjectType.class);
             out.beginObject();
 
-            for (Map.Entry<String, AbstractCityObjectType> entry : value.entrySet()) {
-                out.name(entry.getKey());
-                Streams.write(gson.toJsonTree(entry.getValue(), AbstractCityObjectType.class), out);
+            // concatenating the output of parallel writers is only possible for a plain writer without indentation
+            if (writePool != null && value.size() > BATCH_SIZE && writerHelper.isConcatenable(out))
+                writeInParallel(out, value, adapter);
+            else {
+                for (Map.Entry<String, AbstractCityObjectType> entry : value.entrySet()) {
+                    if (isWritten(adapter, entry.getValue())) {
+                        out.name(entry.getKey());
+                        adapter.write(out, entry.getValue());
+                    }
+                }
             }
 
             out.endObject();
@@ -53,12 +94,53 @@ public class CityObjectsAdapter extends TypeAdapter<Map<String, AbstractCityObje
             out.nullValue();
     }
 
+    private void writeInParallel(JsonWriter out, Map<String, AbstractCityObjectType> value, TypeAdapter<AbstractCityObjectType> adapter) throws IOException {
+        Deque<WriteBatch> batches = new ArrayDeque<>();
+        int maxBatches = writePool.getParallelism() * 2;
+        WriteBatch batch = new WriteBatch();
+
+        try {
+            for (Map.Entry<String, AbstractCityObjectType> entry : value.entrySet()) {
+                if (!isWritten(adapter, entry.getValue()))
+                    continue;
+
+                batch.gmlIds[batch.size] = entry.getKey();
+                batch.cityObjects[batch.size++] = entry.getValue();
+
+                if (batch.size == BATCH_SIZE) {
+                    batches.add(batch.submit(out, adapter));
+                    batch = new WriteBatch();
+
+                    // limit the number of buffered city objects
+                    if (batches.size() > maxBatches)
+                        batches.poll().writeTo(out);
+                }
+            }
+
+            if (batch.size > 0)
+                batches.add(batch.submit(out, adapter));
+
+            while (!batches.isEmpty())
+                batches.poll().writeTo(out);
+        } finally {
+            for (WriteBatch pending : batches)
+                pending.task.cancel(false);
+        }
+    }
+
+    private boolean isWritten(TypeAdapter<AbstractCityObjectType> adapter, AbstractCityObjectType cityObject) {
+        // skip the member name of city objects that are rejected by the type filter
+        return cityObject == null
+                || !(adapter instanceof CityObjectTypeAdapter)
+                || ((CityObjectTypeAdapter) adapter).accept(cityObject);
+    }
+
     @Override
     public Map<String, AbstractCityObjectType> read(JsonReader in) throws IOException {
         Map<String, AbstractCityObjectType> cityObjects = null;
 
         if (in.peek() != JsonToken.NULL) {
-            cityObjects = new HashMap<>();
+            cityObjects = new LinkedHashMap<>();
             in.beginObject();
 
             while (in.hasNext()) {
@@ -81,4 +163,44 @@ public class CityObjectsAdapter extends TypeAdapter<Map<String, AbstractCityObje
 
         return cityObjects;
     }
+
+    private class WriteBatch {
+        final String[] gmlIds = new String[BATCH_SIZE];
+        final AbstractCityObjectType[] cityObjects = new AbstractCityObjectType[BATCH_SIZE];
+        int size;
+        ForkJoinTask<String[]> task;
+
+        WriteBatch submit(JsonWriter out, TypeAdapter<AbstractCityObjectType> adapter) {
+            task = writePool.submit(() -> write(out, adapter));
+            return this;
+        }
+
+        String[] write(JsonWriter out, TypeAdapter<AbstractCityObjectType> adapter) {
+            String[] values = new String[size];
+            StringWriter writer = new StringWriter();
+            for (int i = 0; i < size; i++) {
+                try {
+                    adapter.write(writerHelper.newJsonWriter(out, writer), cityObjects[i]);
+                } catch (IOException e) {
+                    throw new JsonIOException("Failed to write the city object '" + gmlIds[i] + "'.", e);
+                }
+
+                values[i] = writer.toString();
+                writer.getBuffer().setLength(0);
+            }
+
+            return values;
+        }
+
+        void writeTo(JsonWriter out) throws IOException {
+            String[] values = task.join();
+            for (int i = 0; i < size; i++) {
+                out.name(gmlIds[i]);
+                if (!"null".equals(values[i]))
+                    out.jsonValue(values[i]);
+                else
+                    out.nullValue();
+            }
+        }
+    }
 }
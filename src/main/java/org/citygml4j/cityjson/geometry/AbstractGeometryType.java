@@ -21,10 +21,32 @@
 
 package org.citygml4j.cityjson.geometry;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
-public abstract class AbstractGeometryType {
+public abstract class AbstractGeometryType implements Cloneable {
     public abstract GeometryTypeName getType();
 
     public abstract void updateIndexes(Map<Integer, Integer> indexMap);
+
+    public abstract void forEachVertexIndex(IntConsumer action);
+
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        // subclasses may override this with a version that does not build a map
+        Map<Integer, Integer> indexMap = new HashMap<>();
+        forEachVertexIndex(index -> indexMap.computeIfAbsent(index, indexMapping::applyAsInt));
+        updateIndexes(indexMap);
+    }
+
+    @Override
+    public AbstractGeometryType clone() {
+        // subclasses copy their vertex indices so that a clone can be re-indexed independently
+        try {
+            return (AbstractGeometryType) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
 }
@@ -24,11 +24,13 @@ import org.citygml4j.cityjson.appearance.SolidCollectionMaterialObject;
 import org.citygml4j.cityjson.appearance.SolidCollectionTextureObject;
 
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 public abstract class AbstractSolidCollectionType extends AbstractSolidType
         implements GeometryWithAppearance<SolidCollectionMaterialObject, SolidCollectionTextureObject> {
     private final GeometryTypeName type;
-    private List<List<List<List<List<Integer>>>>> boundaries = new ArrayList<>();
+    private BoundaryIndices boundaries = new BoundaryIndices(5);
     private SolidCollectionSemanticsObject semantics;
     private Map<String, SolidCollectionMaterialObject> material;
     private Map<String, SolidCollectionTextureObject> texture;
@@ -44,22 +46,27 @@ public abstract class AbstractSolidCollectionType extends AbstractSolidType
 
     public void addSolid(List<List<List<List<Integer>>>> solid) {
         if (solid != null && solid.size() > 0)
-            boundaries.add(solid);
+            getSolids().add(solid);
     }
 
+    @SuppressWarnings("unchecked")
     public List<List<List<List<List<Integer>>>>> getSolids() {
-        return boundaries;
+        return (List<List<List<List<List<Integer>>>>>) boundaries.asList();
     }
 
     public void setSolids(List<List<List<List<List<Integer>>>>> solids) {
         if (solids != null)
-            boundaries = solids;
+            boundaries.setElements(solids);
     }
 
     public void unsetSolids() {
         boundaries.clear();
     }
 
+    public BoundaryIndices getBoundaryIndices() {
+        return boundaries;
+    }
+
     @Override
     public boolean isSetSemantics() {
         return semantics != null;
@@ -183,18 +190,25 @@ public abstract class AbstractSolidCollectionType extends AbstractSolidType
 
     @Override
     public void updateIndexes(Map<Integer, Integer> indexMap) {
-        for (List<List<List<List<Integer>>>> solid : boundaries) {
-            for (List<List<List<Integer>>> shell : solid) {
-                for (List<List<Integer>> surface : shell) {
-                    for (List<Integer> ring : surface) {
-                        for (int index = 0; index < ring.size(); index++) {
-                            Integer update = indexMap.get(ring.get(index));
-                            if (update != null)
-                                ring.set(index, update);
-                        }
-                    }
-                }
-            }
-        }
+        boundaries.updateIndexes(indexMap);
+    }
+
+    @Override
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        boundaries.updateIndexes(indexMapping);
+    }
+
+    @Override
+    public void forEachVertexIndex(IntConsumer action) {
+        boundaries.forEachIndex(action);
+    }
+
+    @Override
+    public AbstractSolidCollectionType clone() {
+        AbstractSolidCollectionType copy = (AbstractSolidCollectionType) super.clone();
+        if (boundaries != null)
+            copy.boundaries = new BoundaryIndices(boundaries);
+
+        return copy;
     }
 }
@@ -24,11 +24,13 @@ import org.citygml4j.cityjson.appearance.SurfaceCollectionMaterialObject;
 import org.citygml4j.cityjson.appearance.SurfaceCollectionTextureObject;
 
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 public abstract class AbstractSurfaceCollectionType extends AbstractGeometryObjectType
         implements GeometryWithSemantics, GeometryWithAppearance<SurfaceCollectionMaterialObject, SurfaceCollectionTextureObject> {
     private final GeometryTypeName type;
-    private List<List<List<Integer>>> boundaries = new ArrayList<>();
+    private BoundaryIndices boundaries = new BoundaryIndices(3);
     private SurfaceCollectionSemanticsObject semantics;
     private Map<String, SurfaceCollectionMaterialObject> material;
     private Map<String, SurfaceCollectionTextureObject> texture;
@@ -44,22 +46,27 @@ public abstract class AbstractSurfaceCollectionType extends AbstractGeometryObje
 
     public void addSurface(List<List<Integer>> surface) {
         if (surface != null && surface.size() > 0)
-            boundaries.add(surface);
+            getSurfaces().add(surface);
     }
 
+    @SuppressWarnings("unchecked")
     public List<List<List<Integer>>> getSurfaces() {
-        return boundaries;
+        return (List<List<List<Integer>>>) boundaries.asList();
     }
 
     public void setSurfaces(List<List<List<Integer>>> surfaces) {
         if (surfaces != null)
-            boundaries = surfaces;
+            boundaries.setElements(surfaces);
     }
 
     public void unsetSurfaces() {
         boundaries.clear();
     }
 
+    public BoundaryIndices getBoundaryIndices() {
+        return boundaries;
+    }
+
     @Override
     public boolean isSetSemantics() {
         return semantics != null;
@@ -183,14 +190,25 @@ public abstract class AbstractSurfaceCollectionType extends AbstractGeometryObje
 
     @Override
     public void updateIndexes(Map<Integer, Integer> indexMap) {
-        for (List<List<Integer>> surface : boundaries) {
-            for (List<Integer> ring : surface) {
-                for (int index = 0; index < ring.size(); index++) {
-                    Integer update = indexMap.get(ring.get(index));
-                    if (update != null)
-                        ring.set(index, update);
-                }
-            }
-        }
+        boundaries.updateIndexes(indexMap);
+    }
+
+    @Override
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        boundaries.updateIndexes(indexMapping);
+    }
+
+    @Override
+    public void forEachVertexIndex(IntConsumer action) {
+        boundaries.forEachIndex(action);
+    }
+
+    @Override
+    public AbstractSurfaceCollectionType clone() {
+        AbstractSurfaceCollectionType copy = (AbstractSurfaceCollectionType) super.clone();
+        if (boundaries != null)
+            copy.boundaries = new BoundaryIndices(boundaries);
+
+        return copy;
     }
 }
@@ -0,0 +1,366 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson.geometry;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+public class BoundaryIndices {
+    private final int depth;
+    private final int[][] ends;
+    private final int[] counts;
+    private final int[] versions;
+    private int[] indices;
+    private int size;
+
+    public BoundaryIndices(int depth) {
+        if (depth < 1)
+            throw new IllegalArgumentException("The depth of boundary indices must be at least 1.");
+
+        this.depth = depth;
+        ends = new int[depth][];
+        counts = new int[depth];
+        versions = new int[depth];
+        for (int level = 0; level < depth; level++)
+            ends[level] = new int[level == 0 ? 1 : 8];
+
+        indices = new int[16];
+        counts[0] = 1;
+    }
+
+    public BoundaryIndices(BoundaryIndices other) {
+        depth = other.depth;
+        ends = new int[depth][];
+        for (int level = 0; level < depth; level++)
+            ends[level] = Arrays.copyOf(other.ends[level], Math.max(other.counts[level], 1));
+
+        counts = other.counts.clone();
+        versions = new int[depth];
+        indices = Arrays.copyOf(other.indices, Math.max(other.size, 16));
+        size = other.size;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getIndexCount() {
+        return size;
+    }
+
+    public int getIndex(int position) {
+        return indices[checkIndex(position, size)];
+    }
+
+    public void setIndex(int position, int index) {
+        indices[checkIndex(position, size)] = index;
+    }
+
+    public int getCount(int level) {
+        return counts[checkLevel(level)];
+    }
+
+    public int getStart(int level, int element) {
+        return start(checkLevel(level), checkIndex(element, counts[level]));
+    }
+
+    public int getEnd(int level, int element) {
+        return ends[checkLevel(level)][checkIndex(element, counts[level])];
+    }
+
+    public boolean isEmpty() {
+        return ends[0][0] == 0;
+    }
+
+    public void updateIndexes(Map<Integer, Integer> indexMap) {
+        for (int i = 0; i < size; i++) {
+            Integer update = indexMap.get(indices[i]);
+            if (update != null)
+                indices[i] = update;
+        }
+    }
+
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        for (int i = 0; i < size; i++)
+            indices[i] = indexMapping.applyAsInt(indices[i]);
+    }
+
+    public void forEachIndex(IntConsumer action) {
+        for (int i = 0; i < size; i++)
+            action.accept(indices[i]);
+    }
+
+    public void clear() {
+        modified(1);
+        Arrays.fill(counts, 0);
+        counts[0] = 1;
+        ends[0][0] = 0;
+        size = 0;
+    }
+
+    public List<?> asList() {
+        return new Element(0, 0);
+    }
+
+    public void setElements(List<?> elements) {
+        BoundaryIndices copy = new BoundaryIndices(depth);
+        if (elements != null)
+            copy.insertAll(elements);
+
+        set(copy);
+    }
+
+    void set(BoundaryIndices other) {
+        // take over the arrays of boundary indices that are not used elsewhere
+        if (other.depth != depth)
+            throw new IllegalArgumentException("The depth of boundary indices must be " + depth + ".");
+
+        modified(1);
+        for (int level = 0; level < depth; level++)
+            ends[level] = other.ends[level];
+
+        System.arraycopy(other.counts, 0, counts, 0, depth);
+        indices = other.indices;
+        size = other.size;
+    }
+
+    void addIndex(int index) {
+        if (size == indices.length)
+            indices = Arrays.copyOf(indices, size + (size >> 1) + 1);
+
+        indices[size++] = index;
+    }
+
+    void endElement(int level) {
+        if (level > 0) {
+            int count = counts[level];
+            if (count == ends[level].length)
+                ends[level] = Arrays.copyOf(ends[level], count + (count >> 1) + 1);
+
+            ends[level][counts[level]++] = childCount(level);
+        } else
+            ends[0][0] = childCount(0);
+    }
+
+    private void insertAll(List<?> elements) {
+        for (Object element : elements) {
+            if (depth == 1)
+                insertIndex(size, toIndex(element));
+            else
+                insert(1, counts[1], toElement(element));
+        }
+
+        ends[0][0] = childCount(0);
+    }
+
+    private void modified(int level) {
+        // elements on this and all lower levels may have been renumbered
+        for (int i = level; i < depth; i++)
+            versions[i]++;
+    }
+
+    private int start(int level, int element) {
+        return element == 0 ? 0 : ends[level][element - 1];
+    }
+
+    private int childCount(int level) {
+        return level == depth - 1 ? size : counts[level + 1];
+    }
+
+    private void insert(int level, int position, List<?> element) {
+        int childStart = start(level, position);
+        int children = 0;
+
+        if (element != null) {
+            for (Object child : element) {
+                if (level == depth - 1)
+                    insertIndex(childStart + children, toIndex(child));
+                else
+                    insert(level + 1, childStart + children, toElement(child));
+
+                children++;
+            }
+        }
+
+        int count = counts[level];
+        if (count == ends[level].length)
+            ends[level] = Arrays.copyOf(ends[level], count + (count >> 1) + 1);
+
+        System.arraycopy(ends[level], position, ends[level], position + 1, count - position);
+        ends[level][position] = childStart;
+        counts[level]++;
+        shiftEnds(level, position, children);
+    }
+
+    private void removeRange(int level, int from, int to) {
+        int childFrom = start(level, from);
+        int childTo = start(level, to);
+
+        if (level == depth - 1) {
+            System.arraycopy(indices, childTo, indices, childFrom, size - childTo);
+            size -= childTo - childFrom;
+        } else
+            removeRange(level + 1, childFrom, childTo);
+
+        System.arraycopy(ends[level], to, ends[level], from, counts[level] - to);
+        counts[level] -= to - from;
+        shiftEnds(level, from, childFrom - childTo);
+    }
+
+    private void insertIndex(int position, int index) {
+        addIndex(index);
+        System.arraycopy(indices, position, indices, position + 1, size - position - 1);
+        indices[position] = index;
+    }
+
+    private void shiftEnds(int level, int from, int delta) {
+        for (int i = from; i < counts[level]; i++)
+            ends[level][i] += delta;
+    }
+
+    private int toIndex(Object value) {
+        // vertex indices are stored as primitive values and cannot be null
+        if (!(value instanceof Integer))
+            throw new IllegalArgumentException(value == null ?
+                    "Boundary indices must not contain null vertex indices." :
+                    "Expected a vertex index but found " + value + ".");
+
+        return (Integer) value;
+    }
+
+    private List<?> toElement(Object value) {
+        // null elements are stored as empty elements
+        if (value != null && !(value instanceof List))
+            throw new IllegalArgumentException("Expected a list of boundary elements but found " + value + ".");
+
+        return (List<?>) value;
+    }
+
+    private int checkLevel(int level) {
+        if (level < 0 || level >= depth)
+            throw new IndexOutOfBoundsException("Level: " + level + ", Depth: " + depth);
+
+        return level;
+    }
+
+    private int checkIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        return index;
+    }
+
+    private class Element extends AbstractList<Object> {
+        private final int level;
+        private final int element;
+        private final int version;
+
+        Element(int level, int element) {
+            this.level = level;
+            this.element = element;
+            version = versions[level];
+        }
+
+        @Override
+        public Object get(int index) {
+            int position = start(level, element) + checkIndex(index, size());
+            return level == depth - 1 ? indices[position] : new Element(level + 1, position);
+        }
+
+        @Override
+        public Object set(int index, Object value) {
+            int position = start(level, element) + checkIndex(index, size());
+            if (level == depth - 1) {
+                int previous = indices[position];
+                indices[position] = toIndex(value);
+                return previous;
+            } else {
+                List<?> previous = copyOf(new Element(level + 1, position));
+                remove(index);
+                add(index, value);
+                return previous;
+            }
+        }
+
+        @Override
+        public void add(int index, Object value) {
+            if (index < 0 || index > size())
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+
+            int position = start(level, element) + index;
+            if (level == depth - 1)
+                insertIndex(position, toIndex(value));
+            else
+                insert(level + 1, position, toElement(value));
+
+            shiftEnds(level, element, 1);
+            modified(level + 1);
+            modCount++;
+        }
+
+        @Override
+        public Object remove(int index) {
+            int position = start(level, element) + checkIndex(index, size());
+            Object previous;
+            if (level == depth - 1) {
+                previous = indices[position];
+                System.arraycopy(indices, position + 1, indices, position, size - position - 1);
+                BoundaryIndices.this.size--;
+            } else {
+                previous = copyOf(new Element(level + 1, position));
+                BoundaryIndices.this.removeRange(level + 1, position, position + 1);
+            }
+
+            shiftEnds(level, element, -1);
+            modified(level + 1);
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            checkForComodification();
+            return ends[level][element] - start(level, element);
+        }
+
+        private void checkForComodification() {
+            // the element may have been moved by a structural change made through another view
+            if (versions[level] != version)
+                throw new ConcurrentModificationException();
+        }
+
+        private List<?> copyOf(List<?> element) {
+            Object[] copy = element.toArray();
+            for (int i = 0; i < copy.length; i++) {
+                if (copy[i] instanceof List)
+                    copy[i] = copyOf((List<?>) copy[i]);
+            }
+
+            return Arrays.asList(copy);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson.geometry;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BoundaryIndicesAdapter extends TypeAdapter<BoundaryIndices> {
+
+    @Override
+    public void write(JsonWriter out, BoundaryIndices value) throws IOException {
+        if (value != null)
+            writeElement(out, value, 0, 0);
+        else
+            out.nullValue();
+    }
+
+    private void writeElement(JsonWriter out, BoundaryIndices boundaries, int level, int element) throws IOException {
+        out.beginArray();
+
+        int end = boundaries.getEnd(level, element);
+        for (int i = boundaries.getStart(level, element); i < end; i++) {
+            if (level == boundaries.getDepth() - 1)
+                out.value(boundaries.getIndex(i));
+            else
+                writeElement(out, boundaries, level + 1, i);
+        }
+
+        out.endArray();
+    }
+
+    @Override
+    public BoundaryIndices read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        // without a geometry type, the depth is only known after reading the nested lists
+        int[] depth = new int[1];
+        List<?> elements = readList(in, 1, depth);
+        BoundaryIndices boundaries = new BoundaryIndices(depth[0]);
+        try {
+            boundaries.setElements(elements);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Invalid boundaries at path " + in.getPreviousPath() + ": " + e.getMessage(), e);
+        }
+
+        return boundaries;
+    }
+
+    public void read(JsonReader in, BoundaryIndices boundaries) throws IOException {
+        boundaries.clear();
+        if (in.peek() != JsonToken.NULL)
+            readElement(in, boundaries, 0);
+        else
+            in.nextNull();
+    }
+
+    private void readElement(JsonReader in, BoundaryIndices boundaries, int level) throws IOException {
+        in.beginArray();
+
+        while (in.hasNext()) {
+            if (level == boundaries.getDepth() - 1) {
+                if (in.peek() == JsonToken.NULL)
+                    throw new JsonSyntaxException("Boundary indices must not contain null vertex indices at path " +
+                            in.getPath() + ".");
+
+                boundaries.addIndex(in.nextInt());
+            }
+            else if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                boundaries.endElement(level + 1);
+            } else
+                readElement(in, boundaries, level + 1);
+        }
+
+        in.endArray();
+        boundaries.endElement(level);
+    }
+
+    private List<?> readList(JsonReader in, int level, int[] maxDepth) throws IOException {
+        List<Object> elements = new ArrayList<>();
+        maxDepth[0] = Math.max(maxDepth[0], level);
+        in.beginArray();
+
+        while (in.hasNext()) {
+            JsonToken token = in.peek();
+            if (token == JsonToken.BEGIN_ARRAY)
+                elements.add(readList(in, level + 1, maxDepth));
+            else if (token == JsonToken.NULL) {
+                in.nextNull();
+                elements.add(null);
+            } else
+                elements.add(in.nextInt());
+        }
+
+        in.endArray();
+        return elements;
+    }
+}
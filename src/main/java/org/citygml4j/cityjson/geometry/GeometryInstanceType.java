@@ -25,6 +25,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 public class GeometryInstanceType extends AbstractGeometryType {
     private final GeometryTypeName type = GeometryTypeName.GEOMETRY_INSTANCE;
@@ -72,4 +74,14 @@ public class GeometryInstanceType extends AbstractGeometryType {
         if (update != null)
             setReferencePoint(update);
     }
+
+    @Override
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        setReferencePoint(indexMapping.applyAsInt(getReferencePoint()));
+    }
+
+    @Override
+    public void forEachVertexIndex(IntConsumer action) {
+        action.accept(getReferencePoint());
+    }
 }
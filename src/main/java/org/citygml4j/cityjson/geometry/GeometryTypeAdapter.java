@@ -22,45 +22,148 @@ package org.citygml4j.cityjson.geometry;
 
 import com.google.gson.*;
 import com.google.gson.internal.Streams;
+import com.google.gson.internal.bind.JsonTreeReader;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import org.citygml4j.cityjson.CityJSONProjection;
+import org.citygml4j.cityjson.feature.CityObjectLoDFilter;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GeometryTypeAdapter extends TypeAdapter<AbstractGeometryType> {
     private final Gson gson;
     private final TypeAdapterFactory factory;
+    private final BoundaryIndicesAdapter boundariesAdapter = new BoundaryIndicesAdapter();
+    private final Map<Class<?>, TypeAdapter<?>> delegates = new ConcurrentHashMap<>();
+
+    private CityJSONProjection projection;
 
     public GeometryTypeAdapter(Gson gson, TypeAdapterFactory factory) {
         this.gson = gson;
         this.factory = factory;
     }
 
-    @SuppressWarnings("unchecked")
+    public GeometryTypeAdapter withProjection(CityJSONProjection projection) {
+        this.projection = projection;
+        return this;
+    }
+
     @Override
     public void write(JsonWriter out, AbstractGeometryType value) throws IOException {
-        if (value != null) {
-            TypeAdapter<AbstractGeometryType> delegate = (TypeAdapter<AbstractGeometryType>) gson.getDelegateAdapter(factory, TypeToken.get(value.getClass()));
-            Streams.write(delegate.toJsonTree(value), out);
-        } else
+        if (value != null)
+            getDelegate(value.getClass()).write(out, value);
+        else
             out.nullValue();
     }
 
     @Override
     public AbstractGeometryType read(JsonReader in) throws IOException {
-        if (in.peek() != JsonToken.NULL) {
-            JsonObject object = Streams.parse(in).getAsJsonObject();
-            JsonElement type = object.get("type");
-
-            if (type != null) {
-                GeometryTypeName name = GeometryTypeName.fromValue(type.getAsString());
-                if (name != null)
-                    return gson.getDelegateAdapter(factory, TypeToken.get(name.getTypeClass())).fromJsonTree(object);
+        return read(in, null);
+    }
+
+    public AbstractGeometryType read(JsonReader in, CityObjectLoDFilter lodFilter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        in.beginObject();
+
+        // collect the members for the delegate adapter except for flat boundaries
+        JsonObject object = new JsonObject();
+        BoundaryIndices boundaries = null;
+        GeometryTypeName name = null;
+        boolean accepted = true;
+        while (accepted && in.hasNext()) {
+            String key = in.nextName();
+            if (projection != null && projection.isSkipGeometryMember(key))
+                in.skipValue();
+            else if (name == null && "type".equals(key) && in.peek() != JsonToken.NULL) {
+                String type = in.nextString();
+                object.addProperty(key, type);
+                if ((name = GeometryTypeName.fromValue(type)) == null)
+                    break;
+
+                // boundaries that precede the type have been buffered
+                JsonElement buffered = object.remove("boundaries");
+                if (buffered != null && hasBoundaryIndices(name)) {
+                    boundaries = new BoundaryIndices(name.getBoundaryDepth());
+                    boundariesAdapter.read(new JsonTreeReader(buffered), boundaries);
+                } else if (buffered != null)
+                    object.add("boundaries", buffered);
+
+                accepted = acceptLoD(object, name, lodFilter);
+            } else if ("boundaries".equals(key) && name != null && hasBoundaryIndices(name)) {
+                // populate the boundaries without a tree
+                boundaries = new BoundaryIndices(name.getBoundaryDepth());
+                boundariesAdapter.read(in, boundaries);
+            } else {
+                object.add(key, Streams.parse(in));
+
+                // skip the boundaries of geometries that are rejected by their lod
+                if ("lod".equals(key) && name != null)
+                    accepted = acceptLoD(object, name, lodFilter);
             }
         }
 
-        return null;
+        AbstractGeometryType geometry = null;
+        if (accepted && name != null) {
+            geometry = getDelegate(name.getTypeClass()).fromJsonTree(object);
+            if (boundaries != null)
+                getBoundaryIndices(geometry).set(boundaries);
+
+            if (lodFilter != null && geometry instanceof AbstractGeometryObjectType
+                    && !lodFilter.accept(((AbstractGeometryObjectType) geometry).getLod()))
+                geometry = null;
+        }
+
+        while (in.hasNext()) {
+            in.nextName();
+            in.skipValue();
+        }
+
+        in.endObject();
+        return geometry;
+    }
+
+    private boolean acceptLoD(JsonObject object, GeometryTypeName name, CityObjectLoDFilter lodFilter) {
+        if (lodFilter == null || !AbstractGeometryObjectType.class.isAssignableFrom(name.getTypeClass()))
+            return true;
+
+        JsonElement lod = object.get("lod");
+        return lod == null
+                || !lod.isJsonPrimitive()
+                || !lod.getAsJsonPrimitive().isNumber()
+                || lodFilter.accept(lod.getAsNumber());
+    }
+
+    private boolean hasBoundaryIndices(GeometryTypeName name) {
+        // surfaces and solids keep their boundaries in flat arrays
+        return name.getBoundaryDepth() > 2;
+    }
+
+    private BoundaryIndices getBoundaryIndices(AbstractGeometryType geometry) {
+        if (geometry instanceof AbstractSurfaceCollectionType)
+            return ((AbstractSurfaceCollectionType) geometry).getBoundaryIndices();
+        else if (geometry instanceof SolidType)
+            return ((SolidType) geometry).getBoundaryIndices();
+        else
+            return ((AbstractSolidCollectionType) geometry).getBoundaryIndices();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<AbstractGeometryType> getDelegate(Class<?> type) {
+        // resolve the delegate only once per class instead of walking the factories for every geometry
+        TypeAdapter<?> delegate = delegates.get(type);
+        if (delegate == null) {
+            delegate = gson.getDelegateAdapter(factory, TypeToken.get(type));
+            delegates.putIfAbsent(type, delegate);
+        }
+
+        return (TypeAdapter<AbstractGeometryType>) delegate;
     }
 }
@@ -22,30 +22,41 @@ package org.citygml4j.cityjson.geometry;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum GeometryTypeName {
     @SerializedName("MultiPoint")
-    MULTI_POINT("MultiPoint", MultiPointType.class),
+    MULTI_POINT("MultiPoint", MultiPointType.class, 1),
     @SerializedName("MultiLineString")
-    MULTI_LINE_STRING("MultiLineString", MultiLineStringType.class),
+    MULTI_LINE_STRING("MultiLineString", MultiLineStringType.class, 2),
     @SerializedName("MultiSurface")
-    MULTI_SURFACE("MultiSurface", MultiSurfaceType.class),
+    MULTI_SURFACE("MultiSurface", MultiSurfaceType.class, 3),
     @SerializedName("CompositeSurface")
-    COMPOSITE_SURFACE("CompositeSurface", CompositeSurfaceType.class),
+    COMPOSITE_SURFACE("CompositeSurface", CompositeSurfaceType.class, 3),
     @SerializedName("Solid")
-    SOLID("Solid", SolidType.class),
+    SOLID("Solid", SolidType.class, 4),
     @SerializedName("MultiSolid")
-    MULTI_SOLID("MultiSolid", MultiSolidType.class),
+    MULTI_SOLID("MultiSolid", MultiSolidType.class, 5),
     @SerializedName("CompositeSolid")
-    COMPOSITE_SOLID("CompositeSolid", CompositeSolidType.class),
+    COMPOSITE_SOLID("CompositeSolid", CompositeSolidType.class, 5),
     @SerializedName("GeometryInstance")
-    GEOMETRY_INSTANCE("GeometryInstance", GeometryInstanceType.class);
+    GEOMETRY_INSTANCE("GeometryInstance", GeometryInstanceType.class, 1);
 
+    private static final Map<String, GeometryTypeName> TYPES = new HashMap<>();
     private final String value;
     private final Class<? extends AbstractGeometryType> typeClass;
+    private final int boundaryDepth;
+
+    static {
+        for (GeometryTypeName type : GeometryTypeName.values())
+            TYPES.put(type.value, type);
+    }
 
-    private GeometryTypeName(String value, Class<? extends AbstractGeometryType> typeClass) {
+    private GeometryTypeName(String value, Class<? extends AbstractGeometryType> typeClass, int boundaryDepth) {
         this.value = value;
         this.typeClass = typeClass;
+        this.boundaryDepth = boundaryDepth;
     }
 
     public String getValue() {
@@ -56,18 +67,17 @@ public enum GeometryTypeName {
         return typeClass;
     }
 
+    public int getBoundaryDepth() {
+        return boundaryDepth;
+    }
+
     @Override
     public String toString() {
         return value;
     }
 
     public static GeometryTypeName fromValue(String value) {
-        for (GeometryTypeName type : GeometryTypeName.values()) {
-            if (type.value.equals(value))
-                return type;
-        }
-
-        return null;
+        return value != null ? TYPES.get(value) : null;
     }
 
 }
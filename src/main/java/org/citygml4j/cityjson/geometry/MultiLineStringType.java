@@ -23,6 +23,8 @@ package org.citygml4j.cityjson.geometry;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 public class MultiLineStringType extends AbstractGeometryObjectType {
     private final GeometryTypeName type = GeometryTypeName.MULTI_LINE_STRING;
@@ -61,4 +63,37 @@ public class MultiLineStringType extends AbstractGeometryObjectType {
             }
         }
     }
+
+    @Override
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        for (List<Integer> lineString : boundaries) {
+            for (int index = 0; index < lineString.size(); index++) {
+                Integer point = lineString.get(index);
+                if (point != null)
+                    lineString.set(index, indexMapping.applyAsInt(point));
+            }
+        }
+    }
+
+    @Override
+    public void forEachVertexIndex(IntConsumer action) {
+        for (List<Integer> lineString : boundaries) {
+            for (Integer index : lineString) {
+                if (index != null)
+                    action.accept(index);
+            }
+        }
+    }
+
+    @Override
+    public MultiLineStringType clone() {
+        MultiLineStringType copy = (MultiLineStringType) super.clone();
+        if (boundaries != null) {
+            copy.boundaries = new ArrayList<>(boundaries.size());
+            for (List<Integer> lineString : boundaries)
+                copy.boundaries.add(lineString != null ? new ArrayList<>(lineString) : null);
+        }
+
+        return copy;
+    }
 }
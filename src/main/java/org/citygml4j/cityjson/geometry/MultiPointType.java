@@ -23,6 +23,8 @@ package org.citygml4j.cityjson.geometry;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 public class MultiPointType extends AbstractGeometryObjectType {
     private final GeometryTypeName type = GeometryTypeName.MULTI_POINT;
@@ -63,4 +65,30 @@ public class MultiPointType extends AbstractGeometryObjectType {
                 boundaries.set(index, update);
         }
     }
+
+    @Override
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        for (int index = 0; index < boundaries.size(); index++) {
+            Integer point = boundaries.get(index);
+            if (point != null)
+                boundaries.set(index, indexMapping.applyAsInt(point));
+        }
+    }
+
+    @Override
+    public void forEachVertexIndex(IntConsumer action) {
+        for (Integer index : boundaries) {
+            if (index != null)
+                action.accept(index);
+        }
+    }
+
+    @Override
+    public MultiPointType clone() {
+        MultiPointType copy = (MultiPointType) super.clone();
+        if (boundaries != null)
+            copy.boundaries = new ArrayList<>(boundaries);
+
+        return copy;
+    }
 }
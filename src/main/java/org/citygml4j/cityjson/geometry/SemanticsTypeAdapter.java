@@ -27,50 +27,65 @@ import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import org.citygml4j.cityjson.CityJSONRegistry;
+import org.citygml4j.cityjson.CityJSONRegistrySnapshot;
+import org.citygml4j.cityjson.util.MergingJsonWriter;
 import org.citygml4j.cityjson.util.PropertyHelper;
+import org.citygml4j.cityjson.util.StringPool;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SemanticsTypeAdapter extends TypeAdapter<SemanticsType> {
     private final Gson gson;
     private final TypeAdapterFactory factory;
+    private final TypeAdapter<Object> objectAdapter;
 
-    private final CityJSONRegistry registry = CityJSONRegistry.getInstance();
-    private final Map<String, List<String>> predefinedAttributes = new HashMap<>();
-    private final PropertyHelper propertyHelper = new PropertyHelper();
+    private final CityJSONRegistry globalRegistry = CityJSONRegistry.getInstance();
+    private final Map<Class<?>, TypeAdapter<? extends SemanticsType>> delegates = new ConcurrentHashMap<>();
+
+    private CityJSONRegistrySnapshot registry;
+    private PropertyHelper propertyHelper = new PropertyHelper();
+    private StringPool stringPool;
 
     public SemanticsTypeAdapter(Gson gson, TypeAdapterFactory factory) {
         this.gson = gson;
         this.factory = factory;
+
+        objectAdapter = gson.getAdapter(Object.class);
+    }
+
+    public SemanticsTypeAdapter withRegistry(CityJSONRegistrySnapshot registry) {
+        this.registry = registry;
+        return this;
+    }
+
+    public SemanticsTypeAdapter withPropertyHelper(PropertyHelper propertyHelper) {
+        if (propertyHelper != null)
+            this.propertyHelper = propertyHelper;
+
+        return this;
+    }
+
+    public SemanticsTypeAdapter withStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void write(JsonWriter out, SemanticsType value) throws IOException {
         if (value != null) {
+            CityJSONRegistrySnapshot registry = getRegistry();
             if (value.type == null)
-                value.type = registry.getSemanticSurfaceType(value);
-
-            Class<?> typeOf = registry.getSemanticSurfaceClass(value.type);
-            TypeAdapter<SemanticsType> delegate = (TypeAdapter<SemanticsType>) gson.getDelegateAdapter(factory, TypeToken.get(typeOf));
+                value.type = registry.getSemanticSurfaceType(value.getClass());
 
-            JsonElement element = delegate.toJsonTree(value);
-            if (element != null && element.isJsonObject()) {
-                JsonObject object = element.getAsJsonObject();
+            Class<? extends SemanticsType> typeOf = registry.getSemanticSurfaceClass(value.type);
+            TypeAdapter<SemanticsType> delegate = getDelegate(typeOf != null ? typeOf : value.getClass());
 
-                // serialize extension attributes
-                if (value.isSetAttributes()) {
-                    JsonObject properties = gson.toJsonTree(value.getAttributes()).getAsJsonObject();
-                    for (Map.Entry<String, JsonElement> entry : properties.entrySet())
-                        object.add(entry.getKey(), entry.getValue());
-                }
-            }
-
-            Streams.write(element, out);
+            // serialize extension attributes
+            delegate.write(new MergingJsonWriter(out, value.getAttributes(), objectAdapter), value);
         } else
             out.nullValue();
     }
@@ -82,13 +97,15 @@ public class SemanticsTypeAdapter extends TypeAdapter<SemanticsType> {
             JsonPrimitive type = object.getAsJsonPrimitive("type");
 
             if (type != null) {
+                CityJSONRegistrySnapshot registry = getRegistry();
                 Class<? extends SemanticsType> typeOf = registry.getSemanticSurfaceClass(type.getAsString());
                 if (typeOf != null) {
-                    SemanticsType semantics = gson.getDelegateAdapter(factory, TypeToken.get(typeOf)).fromJsonTree(object);
+                    SemanticsType semantics = getDelegate(typeOf).fromJsonTree(object);
+                    if (stringPool != null)
+                        semantics.type = stringPool.intern(semantics.type);
 
                     // deserialize extension attributes
-                    List<String> predefined = predefinedAttributes.computeIfAbsent(semantics.getClass().getTypeName(),
-                            v -> propertyHelper.getDeclaredProperties(semantics.getClass()));
+                    Set<String> predefined = propertyHelper.getPredefinedProperties(semantics.getClass());
 
                     for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
                         String key = entry.getKey();
@@ -102,7 +119,7 @@ public class SemanticsTypeAdapter extends TypeAdapter<SemanticsType> {
                                 propertyHelper.deserialize(entry.getValue());
 
                         if (value != null)
-                            semantics.addAttribute(key, value);
+                            semantics.addAttribute(stringPool != null ? stringPool.intern(key) : key, value);
                     }
 
                     return semantics;
@@ -112,4 +129,20 @@ public class SemanticsTypeAdapter extends TypeAdapter<SemanticsType> {
 
         return null;
     }
+
+    private CityJSONRegistrySnapshot getRegistry() {
+        // follow the global registry unless a snapshot has been bound
+        return registry != null ? registry : globalRegistry.snapshot();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<SemanticsType> getDelegate(Class<? extends SemanticsType> type) {
+        TypeAdapter<? extends SemanticsType> delegate = delegates.get(type);
+        if (delegate == null) {
+            delegate = gson.getDelegateAdapter(factory, TypeToken.get(type));
+            delegates.putIfAbsent(type, delegate);
+        }
+
+        return (TypeAdapter<SemanticsType>) delegate;
+    }
 }
@@ -24,11 +24,13 @@ import org.citygml4j.cityjson.appearance.SolidMaterialObject;
 import org.citygml4j.cityjson.appearance.SolidTextureObject;
 
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 public class SolidType extends AbstractSolidType
         implements GeometryWithAppearance<SolidMaterialObject, SolidTextureObject> {
     private final GeometryTypeName type = GeometryTypeName.SOLID;
-    private List<List<List<List<Integer>>>> boundaries = new ArrayList<>();
+    private BoundaryIndices boundaries = new BoundaryIndices(4);
     private SolidSemanticsObject semantics;
     private Map<String, SolidMaterialObject> material;
     private Map<String, SolidTextureObject> texture;
@@ -40,22 +42,27 @@ public class SolidType extends AbstractSolidType
 
     public void addShell(List<List<List<Integer>>> shell) {
         if (shell != null && shell.size() > 0)
-            boundaries.add(shell);
+            getShells().add(shell);
     }
 
+    @SuppressWarnings("unchecked")
     public List<List<List<List<Integer>>>> getShells() {
-        return boundaries;
+        return (List<List<List<List<Integer>>>>) boundaries.asList();
     }
 
     public void setShells(List<List<List<List<Integer>>>> shells) {
         if (shells != null)
-            boundaries = shells;
+            boundaries.setElements(shells);
     }
 
     public void unsetShells() {
         boundaries.clear();
     }
 
+    public BoundaryIndices getBoundaryIndices() {
+        return boundaries;
+    }
+
     @Override
     public boolean isSetSemantics() {
         return semantics != null;
@@ -179,16 +186,25 @@ public class SolidType extends AbstractSolidType
 
     @Override
     public void updateIndexes(Map<Integer, Integer> indexMap) {
-        for (List<List<List<Integer>>> shell : boundaries) {
-            for (List<List<Integer>> surface : shell) {
-                for (List<Integer> ring : surface) {
-                    for (int index = 0; index < ring.size(); index++) {
-                        Integer update = indexMap.get(ring.get(index));
-                        if (update != null)
-                            ring.set(index, update);
-                    }
-                }
-            }
-        }
+        boundaries.updateIndexes(indexMap);
+    }
+
+    @Override
+    public void updateIndexes(IntUnaryOperator indexMapping) {
+        boundaries.updateIndexes(indexMapping);
+    }
+
+    @Override
+    public void forEachVertexIndex(IntConsumer action) {
+        boundaries.forEachIndex(action);
+    }
+
+    @Override
+    public SolidType clone() {
+        SolidType copy = (SolidType) super.clone();
+        if (boundaries != null)
+            copy.boundaries = new BoundaryIndices(boundaries);
+
+        return copy;
     }
 }
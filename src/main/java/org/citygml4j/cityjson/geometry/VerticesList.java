@@ -21,34 +21,610 @@
 
 package org.citygml4j.cityjson.geometry;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
 
 public class VerticesList {
-    private transient List<List<Double>> vertices;
+    private static final int MAX_SIZE = (Integer.MAX_VALUE - 8) / 3;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    private transient int[] quantized;
+    private transient double[] coordinates;
+    private transient BitSet nullVertices;
+    private transient int size;
+    private transient TransformType transform;
+    private transient Vertices view;
 
     public VerticesList(List<List<Double>> vertices) {
-        this.vertices = vertices != null ? vertices : new ArrayList<>();
+        this(vertices != null ? vertices.size() : 0);
+        if (vertices != null)
+            setVertices(vertices);
+    }
+
+    public VerticesList(int initialCapacity) {
+        quantized = new int[getLength(Math.max(initialCapacity, 16))];
     }
 
     public VerticesList() {
-        this(new ArrayList<>());
+        this(16);
     }
 
     public void addVertex(List<Double> vertex) {
-        vertices.add(vertex);
+        if (vertex != null) {
+            checkVertex(vertex);
+            addVertex(vertex.get(0), vertex.get(1), vertex.get(2));
+        } else
+            addNullVertex();
+    }
+
+    public void addVertex(double x, double y, double z) {
+        ensureCapacity(size + 1);
+        set(size++, x, y, z);
+    }
+
+    public void addVertex(int x, int y, int z) {
+        ensureCapacity(size + 1);
+        set(size++, x, y, z);
+    }
+
+    void addNullVertex() {
+        ensureCapacity(size + 1);
+        setNull(size++);
+    }
+
+    public boolean isNullVertex(int index) {
+        checkIndex(index);
+        return nullVertices != null && nullVertices.get(index);
+    }
+
+    public double getX(int index) {
+        return get(index, 0);
+    }
+
+    public double getY(int index) {
+        return get(index, 1);
+    }
+
+    public double getZ(int index) {
+        return get(index, 2);
+    }
+
+    public double getWorldX(int index) {
+        return getX(index) * getScale(0) + getTranslate(0);
+    }
+
+    public double getWorldY(int index) {
+        return getY(index) * getScale(1) + getTranslate(1);
+    }
+
+    public double getWorldZ(int index) {
+        return getZ(index) * getScale(2) + getTranslate(2);
+    }
+
+    public void setVertex(int index, double x, double y, double z) {
+        set(checkIndex(index), x, y, z);
+    }
+
+    public void setVertex(int index, int x, int y, int z) {
+        set(checkIndex(index), x, y, z);
+    }
+
+    public boolean isQuantized() {
+        return quantized != null;
+    }
+
+    public int getQuantizedX(int index) {
+        return getQuantized(checkIndex(index) * 3);
+    }
+
+    public int getQuantizedY(int index) {
+        return getQuantized(checkIndex(index) * 3 + 1);
+    }
+
+    public int getQuantizedZ(int index) {
+        return getQuantized(checkIndex(index) * 3 + 2);
+    }
+
+    public boolean isSetTransform() {
+        return transform != null;
+    }
+
+    public TransformType getTransform() {
+        return transform;
+    }
+
+    public void setTransform(TransformType transform) {
+        this.transform = transform;
+    }
+
+    public double[] toWorld() {
+        double[] world = new double[size * 3];
+        double[] scale = {getScale(0), getScale(1), getScale(2)};
+        double[] translate = {getTranslate(0), getTranslate(1), getTranslate(2)};
+
+        // null vertices are represented by NaN values
+        for (int i = 0; i < world.length; i++) {
+            world[i] = nullVertices == null || !nullVertices.get(i / 3) ?
+                    getValue(i) * scale[i % 3] + translate[i % 3] :
+                    Double.NaN;
+        }
+
+        return world;
+    }
+
+    public void convertToWorld() {
+        coordinates = toWorld();
+        quantized = null;
+        transform = null;
+    }
+
+    public void fromWorld(double[] world, TransformType transform) {
+        if (world.length % 3 != 0)
+            throw new IllegalArgumentException("The number of coordinate values must be a multiple of three.");
+
+        // vertices whose coordinate values are all NaN are null vertices like in toWorld
+        BitSet nullVertices = new BitSet();
+        for (int i = 0; i < world.length; i += 3) {
+            if (Double.isNaN(world[i]) && Double.isNaN(world[i + 1]) && Double.isNaN(world[i + 2]))
+                nullVertices.set(i / 3);
+        }
+
+        quantize(world, nullVertices, transform);
+    }
+
+    public void convertFromWorld(TransformType transform) {
+        quantize(toWorld(), nullVertices != null ? nullVertices : new BitSet(), transform);
+    }
+
+    private void quantize(double[] world, BitSet nullVertices, TransformType transform) {
+        this.transform = transform;
+        double[] scale = {getScale(0), getScale(1), getScale(2)};
+        double[] translate = {getTranslate(0), getTranslate(1), getTranslate(2)};
+        int[] values = new int[Math.max(getLength(world.length / 3), 48)];
+
+        for (int i = 0; i < world.length; i++) {
+            if (!nullVertices.get(i / 3)) {
+                long value = Math.round((world[i] - translate[i % 3]) / scale[i % 3]);
+                if (Double.isNaN(world[i]) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+                    throw new IllegalArgumentException("The coordinate value " + world[i] +
+                            " cannot be quantized using the given transform.");
+
+                values[i] = (int) value;
+            }
+        }
+
+        quantized = values;
+        coordinates = null;
+        this.nullVertices = !nullVertices.isEmpty() ? nullVertices : null;
+        size = world.length / 3;
+    }
+
+    public int[] removeDuplicates(double tolerance) {
+        int[] remap = new int[size];
+        int[] table = new int[getTableSize(size)];
+        int mask = table.length - 1;
+
+        // quantized vertices are compared with the precision of the transform
+        double[] cellSizes = new double[3];
+        for (int axis = 0; axis < 3; axis++)
+            cellSizes[axis] = transform != null ? Math.max(tolerance / getScale(axis), 1) : Math.max(tolerance, 0);
+
+        boolean exact = quantized != null && cellSizes[0] <= 1 && cellSizes[1] <= 1 && cellSizes[2] <= 1;
+        int unique = 0, nullIndex = -1;
+
+        for (int i = 0; i < size; i++) {
+            if (isNullVertex(i)) {
+                if (nullIndex == -1) {
+                    nullIndex = unique;
+                    copy(i, unique++);
+                }
+
+                remap[i] = nullIndex;
+                continue;
+            }
+
+            long x = getKey(i, 0, cellSizes, exact);
+            long y = getKey(i, 1, cellSizes, exact);
+            long z = getKey(i, 2, cellSizes, exact);
+
+            // open addressing with linear probing, slots hold the new index plus one
+            int slot = hash(x, y, z) & mask;
+            while (true) {
+                int candidate = table[slot] - 1;
+                if (candidate == -1) {
+                    table[slot] = unique + 1;
+                    copy(i, unique);
+                    remap[i] = unique++;
+                    break;
+                } else if (getKey(candidate, 0, cellSizes, exact) == x
+                        && getKey(candidate, 1, cellSizes, exact) == y
+                        && getKey(candidate, 2, cellSizes, exact) == z) {
+                    remap[i] = candidate;
+                    break;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        size = unique;
+        clearNullVertices(size);
+        return remap;
+    }
+
+    public int[] retainVertices(BitSet indexes) {
+        int[] remap = new int[size];
+        int retained = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (indexes.get(i)) {
+                copy(i, retained);
+                remap[i] = retained++;
+            } else
+                remap[i] = -1;
+        }
+
+        size = retained;
+        clearNullVertices(size);
+        return remap;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
     }
 
     public List<List<Double>> getVertices() {
-        return vertices;
+        if (view == null)
+            view = new Vertices();
+
+        return view;
     }
 
     public void setVertices(List<List<Double>> vertices) {
-        this.vertices = vertices;
+        if (vertices != getVertices()) {
+            // reject invalid vertices before changing the list
+            if (vertices != null) {
+                for (List<Double> vertex : vertices) {
+                    if (vertex != null)
+                        checkVertex(vertex);
+                }
+            }
+
+            clear();
+            if (vertices != null) {
+                ensureCapacity(vertices.size());
+                for (List<Double> vertex : vertices)
+                    addVertex(vertex);
+            }
+        }
+    }
+
+    public void ensureCapacity(int capacity) {
+        int length = quantized != null ? quantized.length : coordinates.length;
+        if ((long) capacity * 3 > length) {
+            int newLength = getLength(Math.max(capacity, Math.min(size + (size >> 1), MAX_SIZE)));
+            if (quantized != null)
+                quantized = Arrays.copyOf(quantized, newLength);
+            else
+                coordinates = Arrays.copyOf(coordinates, newLength);
+        }
+    }
+
+    public void trimToSize() {
+        if (quantized != null && size * 3 < quantized.length)
+            quantized = Arrays.copyOf(quantized, size * 3);
+        else if (coordinates != null && size * 3 < coordinates.length)
+            coordinates = Arrays.copyOf(coordinates, size * 3);
+    }
+
+    public void truncate(int size) {
+        if (size < 0 || size > this.size)
+            throw new IndexOutOfBoundsException("Size: " + size + ", Current size: " + this.size);
+
+        this.size = size;
+        clearNullVertices(size);
     }
 
     public void clear() {
-        vertices.clear();
+        size = 0;
+        nullVertices = null;
+    }
+
+    private double get(int index, int axis) {
+        // the coordinate values of null vertices are NaN
+        return !isNullVertex(index) ? getValue(index * 3 + axis) : Double.NaN;
+    }
+
+    private double getValue(int offset) {
+        return quantized != null ? quantized[offset] : coordinates[offset];
+    }
+
+    private int getQuantized(int offset) {
+        if (quantized != null)
+            return quantized[offset];
+        else
+            return (int) Math.max(Math.min(Math.round(coordinates[offset]), Integer.MAX_VALUE), Integer.MIN_VALUE);
+    }
+
+    private void set(int index, double x, double y, double z) {
+        if (quantized != null) {
+            if (isIntegral(x) && isIntegral(y) && isIntegral(z)) {
+                set(index, (int) x, (int) y, (int) z);
+                return;
+            }
+
+            dequantize();
+        }
+
+        int offset = index * 3;
+        coordinates[offset] = x;
+        coordinates[offset + 1] = y;
+        coordinates[offset + 2] = z;
+        setNullVertex(index, false);
+    }
+
+    private void set(int index, int x, int y, int z) {
+        if (quantized != null) {
+            int offset = index * 3;
+            quantized[offset] = x;
+            quantized[offset + 1] = y;
+            quantized[offset + 2] = z;
+            setNullVertex(index, false);
+        } else
+            set(index, (double) x, (double) y, (double) z);
+    }
+
+    private void setNull(int index) {
+        int offset = index * 3;
+        if (quantized != null)
+            Arrays.fill(quantized, offset, offset + 3, 0);
+        else
+            Arrays.fill(coordinates, offset, offset + 3, 0);
+
+        setNullVertex(index, true);
+    }
+
+    private void setNullVertex(int index, boolean isNull) {
+        if (isNull) {
+            if (nullVertices == null)
+                nullVertices = new BitSet();
+
+            nullVertices.set(index);
+        } else if (nullVertices != null)
+            nullVertices.clear(index);
+    }
+
+    private void clearNullVertices(int from) {
+        if (nullVertices != null && nullVertices.length() > from)
+            nullVertices.clear(from, nullVertices.length());
+    }
+
+    private void shiftNullVertices(int from, int distance) {
+        // keep the null flags aligned with the coordinate values of the following vertices
+        if (nullVertices != null && nullVertices.length() > from) {
+            BitSet shifted = nullVertices.get(from, nullVertices.length());
+            nullVertices.clear(Math.min(from, from + distance), nullVertices.length());
+            for (int i = shifted.nextSetBit(0); i >= 0; i = shifted.nextSetBit(i + 1))
+                nullVertices.set(from + distance + i);
+        }
+    }
+
+    private boolean isIntegral(double value) {
+        // -0.0 and NaN are kept as double values
+        return (int) value == value && (value != 0 || Double.doubleToRawLongBits(value) == 0);
+    }
+
+    private void dequantize() {
+        coordinates = new double[quantized.length];
+        for (int i = 0; i < size * 3; i++)
+            coordinates[i] = quantized[i];
+
+        quantized = null;
+    }
+
+    private long getKey(int index, int axis, double[] cellSizes, boolean exact) {
+        int offset = index * 3 + axis;
+        if (exact)
+            return quantized[offset];
+
+        double value = getValue(offset);
+        return cellSizes[axis] > 0 && !Double.isNaN(value) ?
+                Math.round(value / cellSizes[axis]) :
+                Double.doubleToLongBits(value + 0.0);
+    }
+
+    private void copy(int from, int to) {
+        if (from != to) {
+            if (quantized != null)
+                System.arraycopy(quantized, from * 3, quantized, to * 3, 3);
+            else
+                System.arraycopy(coordinates, from * 3, coordinates, to * 3, 3);
+
+            if (nullVertices != null)
+                nullVertices.set(to, nullVertices.get(from));
+        }
+    }
+
+    private int hash(long x, long y, long z) {
+        long hash = (x * 0x9e3779b97f4a7c15L + y) * 0x9e3779b97f4a7c15L + z;
+        hash *= 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private int getTableSize(int size) {
+        // keep the load factor at or below 0.5 as long as possible
+        long capacity = Long.highestOneBit(Math.max((long) size * 2, 16) - 1) << 1;
+        if (capacity > MAX_TABLE_SIZE) {
+            // probing only terminates if the table has a free slot
+            if (size >= MAX_TABLE_SIZE)
+                throw new IllegalStateException("Cannot remove duplicates from " + size +
+                        " vertices. The supported maximum is " + (MAX_TABLE_SIZE - 1) + " vertices.");
+
+            capacity = MAX_TABLE_SIZE;
+        }
+
+        return (int) capacity;
     }
 
+    private int getLength(long capacity) {
+        // the coordinate values of all vertices must fit into a single array
+        if (capacity > MAX_SIZE)
+            throw new IllegalStateException("Cannot store " + capacity + " vertices. The supported maximum is " +
+                    MAX_SIZE + " vertices.");
+
+        return (int) capacity * 3;
+    }
+
+    private double getScale(int axis) {
+        return transform != null && transform.isSetScale() ? transform.getScale().get(axis) : 1;
+    }
+
+    private double getTranslate(int axis) {
+        return transform != null && transform.isSetTranslate() ? transform.getTranslate().get(axis) : 0;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        return index;
+    }
+
+    private void removeVertex(int index) {
+        int offset = checkIndex(index) * 3;
+        if (quantized != null)
+            System.arraycopy(quantized, offset + 3, quantized, offset, (size - index - 1) * 3);
+        else
+            System.arraycopy(coordinates, offset + 3, coordinates, offset, (size - index - 1) * 3);
+
+        shiftNullVertices(index + 1, -1);
+        size--;
+    }
+
+    private void insertVertex(int index, List<Double> vertex) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        if (vertex != null)
+            checkVertex(vertex);
+
+        ensureCapacity(size + 1);
+        int offset = index * 3;
+        if (quantized != null)
+            System.arraycopy(quantized, offset, quantized, offset + 3, (size - index) * 3);
+        else
+            System.arraycopy(coordinates, offset, coordinates, offset + 3, (size - index) * 3);
+
+        shiftNullVertices(index, 1);
+        size++;
+        setVertex(index, vertex);
+    }
+
+    private void setVertex(int index, List<Double> vertex) {
+        if (vertex != null) {
+            checkVertex(vertex);
+            setVertex(index, vertex.get(0), vertex.get(1), vertex.get(2));
+        } else
+            setNull(index);
+    }
+
+    private void checkVertex(List<Double> vertex) {
+        // vertices with fewer or more than three coordinate values cannot be stored
+        if (vertex.size() != 3)
+            throw new IllegalArgumentException("A vertex must have three coordinate values but has " +
+                    vertex.size() + ".");
+
+        if (vertex.contains(null))
+            throw new IllegalArgumentException("The coordinate values of a vertex must not be null.");
+    }
+
+    private List<Double> copyOf(int index) {
+        return isNullVertex(index) ? null : Arrays.asList(getX(index), getY(index), getZ(index));
+    }
+
+    private class Vertices extends AbstractList<List<Double>> {
+
+        @Override
+        public List<Double> get(int index) {
+            return isNullVertex(index) ? null : new Vertex(index);
+        }
+
+        @Override
+        public List<Double> set(int index, List<Double> vertex) {
+            List<Double> previous = copyOf(index);
+            setVertex(index, vertex);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, List<Double> vertex) {
+            if (index == size)
+                addVertex(vertex);
+            else
+                insertVertex(index, vertex);
+
+            modCount++;
+        }
+
+        @Override
+        public List<Double> remove(int index) {
+            List<Double> previous = copyOf(index);
+            removeVertex(index);
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            VerticesList.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class Vertex extends AbstractList<Double> {
+        private final int index;
+
+        Vertex(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Double get(int i) {
+            return VerticesList.this.get(index, checkCoordinate(i));
+        }
+
+        @Override
+        public Double set(int i, Double value) {
+            Objects.requireNonNull(value, "The coordinate values of a vertex must not be null.");
+            double[] vertex = {getX(index), getY(index), getZ(index)};
+            double previous = vertex[checkCoordinate(i)];
+            vertex[i] = value;
+            setVertex(index, vertex[0], vertex[1], vertex[2]);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return 3;
+        }
+
+        private int checkCoordinate(int i) {
+            if (i < 0 || i > 2)
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: 3");
+
+            return i;
+        }
+    }
 }
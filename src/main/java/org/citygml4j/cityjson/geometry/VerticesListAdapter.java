@@ -21,20 +21,35 @@
 
 package org.citygml4j.cityjson.geometry;
 
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import org.citygml4j.cityjson.util.JsonWriterHelper;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class VerticesListAdapter extends TypeAdapter<VerticesList> {
+    private static final int CHUNK_SIZE = 16384;
+
+    private final JsonWriterHelper writerHelper = new JsonWriterHelper();
     private boolean asInteger;
+    private ForkJoinPool writePool;
 
-    public VerticesListAdapter(boolean asInteger) {
+    public VerticesListAdapter(boolean asInteger, ForkJoinPool writePool) {
         this.asInteger = asInteger;
+        this.writePool = writePool;
+    }
+
+    public VerticesListAdapter(boolean asInteger) {
+        this(asInteger, null);
     }
 
     public VerticesListAdapter() {
@@ -46,26 +61,92 @@ public class VerticesListAdapter extends TypeAdapter<VerticesList> {
         if (value != null) {
             out.beginArray();
 
-            for (List<Double> vertex : value.getVertices()) {
-                if (vertex != null) {
-                    out.beginArray();
-                    for (double coordinate : vertex) {
-                        if (asInteger)
-                            out.value((int) coordinate);
-                        else
-                            out.value(coordinate);
-                    }
-
-                    out.endArray();
-                } else
-                    out.nullValue();
-            }
+            // concatenating the output of parallel writers is only possible for a plain writer without indentation
+            if (writePool != null && value.size() > CHUNK_SIZE && writerHelper.isConcatenable(out))
+                writeInParallel(out, value);
+            else
+                writeVertices(out, value, 0, value.size());
 
             out.endArray();
         } else
             out.nullValue();
     }
 
+    private void writeVertices(JsonWriter out, VerticesList value, int from, int to) throws IOException {
+        // quantized vertices are only written as integers if they are meant to be transformed
+        boolean quantized = value.isQuantized() && (asInteger || value.isSetTransform());
+        for (int i = from; i < to; i++) {
+            if (value.isNullVertex(i))
+                out.nullValue();
+            else if (quantized)
+                writeQuantizedVertex(out, value.getQuantizedX(i), value.getQuantizedY(i), value.getQuantizedZ(i));
+            else
+                writeVertex(out, value.getX(i), value.getY(i), value.getZ(i));
+        }
+    }
+
+    private void writeInParallel(JsonWriter out, VerticesList value) throws IOException {
+        Deque<ForkJoinTask<String>> chunks = new ArrayDeque<>();
+        int maxChunks = writePool.getParallelism() * 2;
+
+        try {
+            for (int start = 0; start < value.size(); start += CHUNK_SIZE) {
+                int from = start, to = Math.min(start + CHUNK_SIZE, value.size());
+                chunks.add(writePool.submit(() -> writeChunk(out, value, from, to)));
+
+                // limit the number of buffered chunks
+                if (chunks.size() > maxChunks)
+                    out.jsonValue(chunks.poll().join());
+            }
+
+            // each chunk is a comma-separated sequence of vertices that continues the array
+            while (!chunks.isEmpty())
+                out.jsonValue(chunks.poll().join());
+        } finally {
+            for (ForkJoinTask<String> chunk : chunks)
+                chunk.cancel(false);
+        }
+    }
+
+    private String writeChunk(JsonWriter out, VerticesList value, int from, int to) {
+        StringWriter writer = new StringWriter();
+        try {
+            JsonWriter jsonWriter = writerHelper.newJsonWriter(out, writer);
+            jsonWriter.beginArray();
+            writeVertices(jsonWriter, value, from, to);
+            jsonWriter.endArray();
+        } catch (IOException e) {
+            throw new JsonIOException("Failed to write the vertices " + from + " to " + (to - 1) + ".", e);
+        }
+
+        // strip the enclosing brackets
+        StringBuffer buffer = writer.getBuffer();
+        return buffer.substring(1, buffer.length() - 1);
+    }
+
+    public void writeVertex(JsonWriter out, double x, double y, double z) throws IOException {
+        out.beginArray();
+        if (asInteger) {
+            out.value(Math.round(x));
+            out.value(Math.round(y));
+            out.value(Math.round(z));
+        } else {
+            out.value(x);
+            out.value(y);
+            out.value(z);
+        }
+
+        out.endArray();
+    }
+
+    public void writeQuantizedVertex(JsonWriter out, int x, int y, int z) throws IOException {
+        out.beginArray();
+        out.value(x);
+        out.value(y);
+        out.value(z);
+        out.endArray();
+    }
+
     @Override
     public VerticesList read(JsonReader in) throws IOException {
         VerticesList vertices = null;
@@ -76,21 +157,29 @@ public class VerticesListAdapter extends TypeAdapter<VerticesList> {
 
             while (in.hasNext()) {
                 if (in.peek() == JsonToken.NULL) {
-                    vertices.addVertex(null);
+                    vertices.addNullVertex();
                     in.nextNull();
                     continue;
                 }
 
-                List<Double> vertex = new ArrayList<>(3);
+                // vertices must have exactly three coordinate values
                 in.beginArray();
-                if (in.peek() == JsonToken.NUMBER) {
-                    vertex.add(in.nextDouble());
-                    vertex.add(in.nextDouble());
-                    vertex.add(in.nextDouble());
+                double[] vertex = new double[3];
+                int count = 0;
+                while (in.hasNext()) {
+                    double value = in.nextDouble();
+                    if (count < 3)
+                        vertex[count] = value;
+
+                    count++;
                 }
 
-                vertices.addVertex(vertex);
                 in.endArray();
+                if (count != 3)
+                    throw new JsonSyntaxException("A vertex must have three coordinate values but has " + count +
+                            " at path " + in.getPreviousPath() + ".");
+
+                vertices.addVertex(vertex[0], vertex[1], vertex[2]);
             }
 
             in.endArray();
@@ -0,0 +1,49 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson.util;
+
+import com.google.gson.FormattingStyle;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.Writer;
+
+public class JsonWriterHelper {
+
+    public boolean isConcatenable(JsonWriter out) {
+        // subclasses such as the tree writer of Gson do not support raw JSON values
+        if (out.getClass() != JsonWriter.class)
+            return false;
+
+        FormattingStyle style = out.getFormattingStyle();
+        return style.getNewline().isEmpty() && style.getIndent().isEmpty();
+    }
+
+    public JsonWriter newJsonWriter(JsonWriter out, Writer writer) {
+        // use the settings of the target writer so that the output can be concatenated
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setFormattingStyle(out.getFormattingStyle());
+        jsonWriter.setStrictness(out.getStrictness());
+        jsonWriter.setHtmlSafe(out.isHtmlSafe());
+        jsonWriter.setSerializeNulls(out.getSerializeNulls());
+        return jsonWriter;
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+public class MergingJsonWriter extends JsonWriter {
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void flush() {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    private final JsonWriter out;
+    private final Map<String, Object> properties;
+    private final TypeAdapter<Object> adapter;
+    private final MergingJsonWriter parent;
+    private final String memberName;
+
+    private Map<String, Map<String, Object>> mergedMembers;
+    private MergingJsonWriter child;
+    private Set<String> replaced;
+    private List<String> nullMembers;
+    private String name;
+    private int depth;
+    private boolean isObject;
+    private boolean opened;
+    private boolean closed;
+    private boolean skipping;
+    private int skipDepth;
+
+    public MergingJsonWriter(JsonWriter out, Map<String, Object> properties, TypeAdapter<Object> adapter) {
+        this(out, properties, adapter, null, null);
+    }
+
+    private MergingJsonWriter(JsonWriter out, Map<String, Object> properties, TypeAdapter<Object> adapter, MergingJsonWriter parent, String memberName) {
+        super(UNWRITABLE_WRITER);
+        this.out = out;
+        this.properties = properties;
+        this.adapter = adapter;
+        this.parent = parent;
+        this.memberName = memberName;
+
+        setStrictness(out.getStrictness());
+        setHtmlSafe(out.isHtmlSafe());
+        setSerializeNulls(out.getSerializeNulls());
+    }
+
+    public MergingJsonWriter withMergedMember(String name, Map<String, Object> properties) {
+        // the object value of the member is merged with the properties and omitted if it has no values
+        if (mergedMembers == null)
+            mergedMembers = new HashMap<>();
+
+        mergedMembers.put(name, properties);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        if (child != null)
+            child.beginObject();
+        else if (skipping)
+            skipDepth++;
+        else if (depth == 0) {
+            depth++;
+            isObject = true;
+
+            // merged members are only opened once they have a value
+            if (parent == null)
+                open();
+        } else {
+            beforeValue(false);
+            depth++;
+            out.beginObject();
+        }
+
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        if (child != null) {
+            child.endObject();
+            closeChild();
+        } else if (skipping) {
+            if (--skipDepth == 0)
+                skipping = false;
+        } else if (depth == 1 && isObject) {
+            writeRemainingProperties();
+            if (opened)
+                out.endObject();
+
+            depth--;
+            closed = true;
+        } else {
+            depth--;
+            out.endObject();
+        }
+
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        if (child != null)
+            child.beginArray();
+        else if (skipping)
+            skipDepth++;
+        else {
+            beforeValue(false);
+            depth++;
+            out.beginArray();
+        }
+
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        if (child != null) {
+            child.endArray();
+            closeChild();
+        } else if (skipping) {
+            if (--skipDepth == 0)
+                skipping = false;
+        } else {
+            out.endArray();
+            if (--depth == 0)
+                closed = true;
+        }
+
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (child != null)
+            child.name(name);
+        else if (skipping)
+            return this;
+        else if (depth != 1 || !isObject)
+            out.name(name);
+        else {
+            Object property = properties != null ? properties.get(name) : null;
+            if (property != null) {
+                // replace the value of a member by the property of the same name
+                beforeMember(name, false);
+                adapter.write(out, property);
+
+                if (replaced == null)
+                    replaced = new HashSet<>();
+
+                replaced.add(name);
+                skipping = true;
+            } else if (mergedMembers != null && mergedMembers.containsKey(name))
+                child = new MergingJsonWriter(out, mergedMembers.get(name), adapter, this, name);
+            else
+                this.name = name;
+        }
+
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        return value(value == null, w -> w.value(value));
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        return value(value == null, w -> w.jsonValue(value));
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        return value(true, JsonWriter::nullValue);
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        return value(false, w -> w.value(value));
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        return value(value == null, w -> w.value(value));
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        return value(false, w -> w.value(value));
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        return value(false, w -> w.value(value));
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        return value(false, w -> w.value(value));
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        return value(value == null, w -> w.value(value));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        // the target writer is closed by its owner
+    }
+
+    private JsonWriter value(boolean isNull, Value value) throws IOException {
+        if (child != null) {
+            value.write(child);
+            closeChild();
+        } else if (skipping) {
+            if (skipDepth == 0)
+                skipping = false;
+        } else {
+            if (beforeValue(isNull))
+                value.write(out);
+
+            if (depth == 0)
+                closed = true;
+        }
+
+        return this;
+    }
+
+    private boolean beforeValue(boolean isNull) throws IOException {
+        if (depth == 0)
+            return parent == null || parent.beforeMember(memberName, isNull);
+        else if (depth == 1 && isObject)
+            return beforeMember(name, isNull);
+        else
+            return true;
+    }
+
+    private boolean beforeMember(String name, boolean isNull) throws IOException {
+        if (!opened) {
+            // null members are only written once the object has a value
+            if (isNull) {
+                if (nullMembers == null)
+                    nullMembers = new ArrayList<>();
+
+                nullMembers.add(name);
+                return false;
+            }
+
+            open();
+        }
+
+        out.name(name);
+        return true;
+    }
+
+    private void open() throws IOException {
+        if (parent != null)
+            parent.beforeMember(memberName, false);
+
+        out.beginObject();
+        opened = true;
+
+        if (nullMembers != null) {
+            for (String name : nullMembers) {
+                out.name(name);
+                out.nullValue();
+            }
+        }
+    }
+
+    private void writeRemainingProperties() throws IOException {
+        if (properties != null) {
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                if ((replaced == null || !replaced.contains(entry.getKey()))
+                        && beforeMember(entry.getKey(), entry.getValue() == null)) {
+                    if (entry.getValue() != null)
+                        adapter.write(out, entry.getValue());
+                    else
+                        out.nullValue();
+                }
+            }
+        }
+    }
+
+    private void closeChild() {
+        if (child.closed)
+            child = null;
+    }
+
+    private interface Value {
+        void write(JsonWriter out) throws IOException;
+    }
+}
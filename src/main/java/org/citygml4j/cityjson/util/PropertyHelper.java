@@ -26,18 +26,46 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class PropertyHelper {
+    private static final ClassValue<Set<String>> PREDEFINED_PROPERTIES = new ClassValue<Set<String>>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            return Collections.unmodifiableSet(new HashSet<>(new PropertyHelper().getDeclaredProperties(type)));
+        }
+    };
+
+    private boolean inferDates = true;
+    private NumberPolicy numberPolicy = NumberPolicy.INTEGER_OR_DOUBLE;
+    private StringPool stringPool;
+
+    public Set<String> getPredefinedProperties(Class<?> clazz) {
+        // shared by all adapters and computed only once per class
+        return PREDEFINED_PROPERTIES.get(clazz);
+    }
+
+    public boolean isPredefinedProperty(String name, Class<?> clazz) {
+        return PREDEFINED_PROPERTIES.get(clazz).contains(name);
+    }
 
     public List<String> getDeclaredProperties(Class<?> clazz) {
         List<String> attributeNames = new ArrayList<>();
@@ -54,25 +82,48 @@ public class PropertyHelper {
         return attributeNames;
     }
 
+    public PropertyHelper inferDates(boolean inferDates) {
+        this.inferDates = inferDates;
+        return this;
+    }
+
+    public boolean isInferDates() {
+        return inferDates;
+    }
+
+    public PropertyHelper withNumberPolicy(NumberPolicy numberPolicy) {
+        if (numberPolicy != null)
+            this.numberPolicy = numberPolicy;
+
+        return this;
+    }
+
+    public NumberPolicy getNumberPolicy() {
+        return numberPolicy;
+    }
+
+    public PropertyHelper withStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
+    }
+
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    public String intern(String value) {
+        return stringPool != null ? stringPool.intern(value) : value;
+    }
+
     public Object deserialize(JsonElement element) {
         if (element.isJsonPrimitive()) {
             JsonPrimitive primitive = element.getAsJsonPrimitive();
             if (primitive.isBoolean())
                 return primitive.getAsBoolean();
-            else if (primitive.isNumber()) {
-                Number value = primitive.getAsNumber();
-                if (value.toString().equals(String.valueOf(value.intValue())))
-                    return value.intValue();
-                else
-                    return value.doubleValue();
-            } else {
-                String value = primitive.getAsString();
-                try {
-                    return LocalDate.parse(value, DateTimeFormatter.ISO_LOCAL_DATE);
-                } catch (DateTimeParseException e) {
-                    return value;
-                }
-            }
+            else if (primitive.isNumber())
+                return toNumber(primitive.getAsNumber().toString());
+            else
+                return toString(primitive.getAsString());
         } else if (element.isJsonObject()) {
             JsonObject object = element.getAsJsonObject();
             Map<String, Object> attributeSet = new HashMap<>();
@@ -80,7 +131,7 @@ public class PropertyHelper {
             for (Map.Entry<String, JsonElement> nested : object.entrySet()) {
                 Object value = deserialize(nested.getValue());
                 if (value != null)
-                    attributeSet.put(nested.getKey(), value);
+                    attributeSet.put(intern(nested.getKey()), value);
             }
 
             if (!attributeSet.isEmpty())
@@ -102,4 +153,133 @@ public class PropertyHelper {
         return null;
     }
 
+    public Object deserialize(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NUMBER:
+                return toNumber(in.nextString());
+            case STRING:
+                return toString(in.nextString());
+            case BEGIN_OBJECT:
+                Map<String, Object> attributeSet = new HashMap<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String key = intern(in.nextName());
+                    Object value = deserialize(in);
+                    if (value != null)
+                        attributeSet.put(key, value);
+                }
+
+                in.endObject();
+                return !attributeSet.isEmpty() ? attributeSet : null;
+            case BEGIN_ARRAY:
+                List<Object> items = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    Object value = deserialize(in);
+                    if (value != null)
+                        items.add(value);
+                }
+
+                in.endArray();
+                return !items.isEmpty() ? items : null;
+            default:
+                in.skipValue();
+                return null;
+        }
+    }
+
+    protected Object toNumber(String value) {
+        switch (numberPolicy) {
+            case DOUBLE:
+                return Double.parseDouble(value);
+            case BIG_DECIMAL:
+                return new BigDecimal(value);
+            default:
+                // classify the literal instead of converting it back and forth
+                if (isLong(value)) {
+                    long number = Long.parseLong(value);
+                    if ((int) number == number)
+                        return (int) number;
+                    else if (numberPolicy == NumberPolicy.LONG_OR_DOUBLE)
+                        return number;
+                }
+
+                return Double.parseDouble(value);
+        }
+    }
+
+    protected Object toString(String value) {
+        if (inferDates && isDate(value)) {
+            if (value.length() == 10) {
+                return LocalDate.of(Integer.parseInt(value.substring(0, 4)),
+                        Integer.parseInt(value.substring(5, 7)),
+                        Integer.parseInt(value.substring(8, 10)));
+            }
+
+            // signed years with more than four digits are rare
+            try {
+                return LocalDate.parse(value, DateTimeFormatter.ISO_LOCAL_DATE);
+            } catch (DateTimeParseException e) {
+                //
+            }
+        }
+
+        return intern(value);
+    }
+
+    private boolean isLong(String value) {
+        int start = value.startsWith("-") ? 1 : 0;
+        int digits = value.length() - start;
+        if (digits == 0 || digits > 19)
+            return false;
+
+        // -0 and leading zeros are read as double values
+        if (value.charAt(start) == '0' && (digits > 1 || start == 1))
+            return false;
+
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+
+        // 19 digits may exceed the range of long
+        return digits < 19 || new BigInteger(value).bitLength() < 64;
+    }
+
+    private boolean isDate(String value) {
+        int length = value.length();
+        if (length < 10)
+            return false;
+
+        // yyyy-MM-dd with an optional sign for years with more than four digits
+        int offset = length - 10;
+        if (offset > 0 && (value.charAt(0) != '+' && value.charAt(0) != '-'))
+            return false;
+
+        for (int i = offset > 0 ? 1 : 0; i < length; i++) {
+            char c = value.charAt(i);
+            boolean separator = i == length - 6 || i == length - 3;
+            if (separator ? c != '-' : (c < '0' || c > '9'))
+                return false;
+        }
+
+        if (offset > 0)
+            return true;
+
+        int month = (value.charAt(5) - '0') * 10 + (value.charAt(6) - '0');
+        int day = (value.charAt(8) - '0') * 10 + (value.charAt(9) - '0');
+        return month >= 1 && month <= 12 && day >= 1
+                && day <= Month.of(month).length(Year.isLeap((value.charAt(0) - '0') * 1000
+                + (value.charAt(1) - '0') * 100 + (value.charAt(2) - '0') * 10 + (value.charAt(3) - '0')));
+    }
+
+    public enum NumberPolicy {
+        INTEGER_OR_DOUBLE,
+        LONG_OR_DOUBLE,
+        DOUBLE,
+        BIG_DECIMAL
+    }
 }
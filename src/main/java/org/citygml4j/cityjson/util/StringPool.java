@@ -0,0 +1,97 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.citygml4j.cityjson.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StringPool {
+    private final int maxSize;
+    private final int maxLength;
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StringPool(int maxSize, int maxLength) {
+        this.maxSize = Math.max(maxSize, 0);
+        this.maxLength = Math.max(maxLength, 0);
+    }
+
+    public StringPool() {
+        this(1 << 16, 128);
+    }
+
+    public String intern(String value) {
+        if (value == null || value.length() > maxLength)
+            return value;
+
+        String pooled = strings.get(value);
+        if (pooled != null) {
+            hits.increment();
+            return pooled;
+        }
+
+        misses.increment();
+
+        // the pool stops growing once it is full
+        if (strings.size() < maxSize) {
+            pooled = strings.putIfAbsent(value, value);
+            if (pooled != null)
+                return pooled;
+        }
+
+        return value;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hits = this.hits.sum();
+        long total = hits + misses.sum();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    public void clear() {
+        strings.clear();
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.feature.BuildingType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityJSONInputTest {
+    private final Gson gson = TestData.newGson();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void lazyModeWritesSameOutput() throws IOException {
+        Path file = TestData.copy(TestData.SAMPLE, tempDir);
+        try (CityJSONInput input = new CityJSONInput(file).withLazyCityObjects(true)) {
+            assertEquals(TestData.read(TestData.SAMPLE_EXPECTED), gson.toJson(input.read(gson)));
+        }
+    }
+
+    @Test
+    void lazyModeKeepsChanges() throws IOException {
+        Path file = TestData.copy(TestData.SAMPLE, tempDir);
+        try (CityJSONInput input = new CityJSONInput(file).withLazyCityObjects(true)) {
+            CityJSON cityJSON = input.read(gson);
+            assertEquals(4, cityJSON.getCityObjects().size());
+
+            AbstractCityObjectType building = cityJSON.getCityObject("b1");
+            building.getAttributes().setFunction("office");
+            assertSame(building, cityJSON.getCityObject("b1"));
+
+            BuildingType replacement = new BuildingType("b2");
+            cityJSON.addCityObject(replacement);
+            cityJSON.removeCityObject("road");
+
+            assertEquals(Arrays.asList("b2", "b1", "b1-part"), TestData.gmlIds(cityJSON.getCityObjects()));
+            assertSame(replacement, cityJSON.getCityObject("b2"));
+            assertNull(cityJSON.getCityObject("road"));
+            assertEquals("office", cityJSON.getCityObject("b1").getAttributes().getFunction());
+        }
+    }
+
+    @Test
+    void lazyModeSkipsCityObjectsOfUnknownTypes() throws IOException {
+        String json = "{\"type\":\"CityJSON\",\"version\":\"1.0\",\"CityObjects\":{" +
+                "\"a\":{\"type\":\"Building\"},\"b\":{\"type\":\"+Unknown\"},\"c\":{\"geometry\":[]}}," +
+                "\"vertices\":[]}";
+        Path file = TestData.write(json, tempDir.resolve("unknown.city.json"));
+
+        try (CityJSONInput input = new CityJSONInput(file).withLazyCityObjects(true)) {
+            CityJSON cityJSON = input.read(gson);
+            assertEquals(1, cityJSON.getCityObjects().size());
+            assertEquals(Arrays.asList("a"), TestData.gmlIds(cityJSON.getCityObjects()));
+            assertFalse(cityJSON.hasCityObject("b"));
+        }
+
+        Gson unknownExtensions = TestData.newGson(new CityJSONTypeAdapterFactory().processUnknownExtensions(true));
+        try (CityJSONInput input = new CityJSONInput(file).withLazyCityObjects(true)) {
+            CityJSON cityJSON = input.read(unknownExtensions);
+            assertEquals(2, cityJSON.getCityObjects().size());
+            assertEquals(Arrays.asList("a", "b"), TestData.gmlIds(cityJSON.getCityObjects()));
+        }
+    }
+
+    @Test
+    void indexLocatesCityObjects() throws IOException {
+        Path file = TestData.copy(TestData.SAMPLE, tempDir);
+        try (CityJSONInput input = new CityJSONInput(file)) {
+            CityJSONIndex index = input.getIndex();
+            assertEquals(4, index.size());
+            assertTrue(index.contains("b1-part"));
+            assertFalse(index.contains("b3"));
+
+            AbstractCityObjectType building = input.readCityObject("b2", gson);
+            assertEquals("b2", building.getGmlId());
+            assertEquals("office", building.getAttributes().getFunction());
+            assertNull(input.readCityObject("b3", gson));
+        }
+    }
+
+    @Test
+    void indexQueriesBoundingBoxes() throws IOException {
+        Path file = TestData.copy(TestData.SAMPLE, tempDir);
+        try (CityJSONInput input = new CityJSONInput(file)) {
+            assertEquals(Arrays.asList("b1", "b1-part"),
+                    TestData.gmlIds(input.readCityObjects(1000, 2000, 1011, 2011, gson)));
+            assertEquals(Arrays.asList("b2", "road"),
+                    TestData.gmlIds(input.readCityObjects(1100, 1990, 1120, 2001, gson)));
+        }
+    }
+
+    @Test
+    void indexFileIsReused() throws IOException {
+        Path file = TestData.copy(TestData.SAMPLE, tempDir);
+        Path indexFile = tempDir.resolve("sample.index");
+
+        try (CityJSONInput input = new CityJSONInput(file).withIndexFile(indexFile)) {
+            assertTrue(input.getIndexWithBoundingBoxes().hasBoundingBoxes());
+        }
+
+        assertTrue(Files.exists(indexFile));
+        try (CityJSONInput input = new CityJSONInput(file).withIndexFile(indexFile)) {
+            CityJSONIndex index = input.getIndex();
+            assertTrue(index.hasBoundingBoxes());
+            assertEquals("BuildingPart", index.getType(index.indexOf("b1-part")));
+            assertArrayEquals(new double[]{1000, 2000, 0, 1010, 2010, 10}, index.getBoundingBox(index.indexOf("b1")));
+        }
+    }
+}
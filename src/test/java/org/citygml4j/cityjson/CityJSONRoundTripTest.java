@@ -0,0 +1,94 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import org.citygml4j.cityjson.feature.BuildingAttributes;
+import org.citygml4j.cityjson.feature.BuildingType;
+import org.citygml4j.cityjson.geometry.SolidSemanticsObject;
+import org.citygml4j.cityjson.geometry.SolidType;
+import org.citygml4j.cityjson.geometry.VerticesList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityJSONRoundTripTest {
+    private final Gson gson = TestData.newGson();
+
+    @Test
+    void writesSameOutputAsPreviousVersions() {
+        // the expected output has been written by the tree-based serializer
+        CityJSON cityJSON = gson.fromJson(TestData.read(TestData.SAMPLE), CityJSON.class);
+        assertEquals(TestData.read(TestData.SAMPLE_EXPECTED), gson.toJson(cityJSON));
+    }
+
+    @Test
+    void roundTripIsStable() {
+        String json = gson.toJson(gson.fromJson(TestData.read(TestData.SAMPLE), CityJSON.class));
+        assertEquals(json, gson.toJson(gson.fromJson(json, CityJSON.class)));
+    }
+
+    @Test
+    void readsCityObjectsAndGeometries() {
+        CityJSON cityJSON = gson.fromJson(TestData.read(TestData.SAMPLE), CityJSON.class);
+        assertEquals(Arrays.asList("b2", "road", "b1", "b1-part"), TestData.gmlIds(cityJSON.getCityObjects()));
+        assertEquals(19, cityJSON.getVerticesList().size());
+
+        BuildingType building = cityJSON.getCityObject("b1", BuildingType.class);
+        assertEquals(10.0, ((BuildingAttributes) building.getAttributes()).getMeasuredHeight());
+        assertEquals("residential", building.getAttributes().getFunction());
+
+        SolidType solid = (SolidType) building.getGeometry().get(0);
+        assertEquals(6, solid.getShells().get(0).size());
+        assertEquals(Arrays.asList(0, 3, 2, 1), solid.getShells().get(0).get(0).get(0));
+
+        SolidSemanticsObject semantics = solid.getSemantics();
+        assertEquals("RoofSurface", semantics.getSurfaces().get(2).getType());
+        assertEquals(Arrays.asList(0, 2, 1, 1, 1, 1), semantics.getValues().get(0));
+    }
+
+    @Test
+    void keepsNullVerticesAndNaNCoordinates() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new CityJSONTypeAdapterFactory())
+                .serializeSpecialFloatingPointValues()
+                .create();
+
+        String json = "[[1.0,2.0,3.0],null,[NaN,NaN,NaN]]";
+        VerticesList vertices = gson.fromJson(json, VerticesList.class);
+        assertTrue(vertices.isNullVertex(1));
+        assertFalse(vertices.isNullVertex(2));
+        assertEquals(json, gson.toJson(vertices));
+    }
+
+    @Test
+    void rejectsVerticesWithoutThreeCoordinates() {
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("[[1.0,2.0]]", VerticesList.class));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("[[1.0,2.0,3.0,4.0]]", VerticesList.class));
+        assertThrows(IllegalArgumentException.class, () -> new VerticesList().addVertex(Arrays.asList(1.0, 2.0)));
+    }
+}
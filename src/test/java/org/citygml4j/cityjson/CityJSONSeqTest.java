@@ -0,0 +1,95 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityJSONSeqTest {
+    private final Gson gson = TestData.newGson();
+
+    @Test
+    void writesOneFeaturePerTopLevelCityObject() throws IOException {
+        CityJSON cityJSON = gson.fromJson(TestData.read(TestData.SAMPLE), CityJSON.class);
+        String seq = write(cityJSON);
+
+        List<String> ids = new ArrayList<>();
+        List<Integer> vertexCounts = new ArrayList<>();
+        try (CityJSONSeqReader reader = new CityJSONSeqReader(new StringReader(seq), gson)) {
+            assertEquals("1.0", reader.getHeader().getVersion());
+            while (reader.hasNext()) {
+                CityJSONFeature feature = reader.next();
+                ids.add(feature.getId());
+                vertexCounts.add(feature.getVerticesList().size());
+            }
+        }
+
+        assertEquals(Arrays.asList("b2", "road", "b1"), ids);
+        assertEquals(Arrays.asList(8, 2, 9), vertexCounts);
+    }
+
+    @Test
+    void leavesSourceUntouched() throws IOException {
+        CityJSON cityJSON = gson.fromJson(TestData.read(TestData.SAMPLE), CityJSON.class);
+        write(cityJSON);
+        assertEquals(TestData.read(TestData.SAMPLE_EXPECTED), gson.toJson(cityJSON));
+    }
+
+    @Test
+    void roundTripKeepsCityObjects() throws IOException {
+        CityJSON cityJSON = gson.fromJson(TestData.read(TestData.SAMPLE), CityJSON.class);
+
+        CityJSON result;
+        try (CityJSONSeqReader reader = new CityJSONSeqReader(new StringReader(write(cityJSON)), gson)) {
+            result = reader.readAll();
+        }
+
+        assertEquals(TestData.gmlIds(cityJSON.getCityObjects()).size(), result.getCityObjects().size());
+        for (AbstractCityObjectType expected : cityJSON.getCityObjects()) {
+            AbstractCityObjectType actual = result.getCityObject(expected.getGmlId());
+            assertNotNull(actual);
+            assertEquals(TestData.withoutGeometry(expected, gson), TestData.withoutGeometry(actual, gson));
+            assertEquals(TestData.coordinates(expected, cityJSON.getVerticesList()),
+                    TestData.coordinates(actual, result.getVerticesList()));
+        }
+    }
+
+    private String write(CityJSON cityJSON) throws IOException {
+        StringWriter output = new StringWriter();
+        try (CityJSONSeqWriter writer = new CityJSONSeqWriter(output, gson)) {
+            writer.writeAll(cityJSON);
+        }
+
+        return output.toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.feature.CityObjectLoDFilter;
+import org.citygml4j.cityjson.feature.CityObjectSpatialFilter;
+import org.citygml4j.cityjson.geometry.AbstractGeometryObjectType;
+import org.citygml4j.cityjson.geometry.AbstractGeometryType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityObjectFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void typeFilter() throws IOException {
+        assertCityObjects(new CityJSONTypeAdapterFactory().withTypeFilter("Building"::equals), "b2", "b1");
+    }
+
+    @Test
+    void attributesFilter() throws IOException {
+        assertCityObjects(new CityJSONTypeAdapterFactory()
+                .withAttributesFilter(attributes -> "office".equals(attributes.getFunction())), "b2");
+    }
+
+    @Test
+    void spatialFilter() throws IOException {
+        // city objects without an extent are filtered by their vertices
+        assertCityObjects(new CityJSONTypeAdapterFactory()
+                .withSpatialFilter(new CityObjectSpatialFilter(1000, 2000, 1011, 2011)), "b1", "b1-part");
+    }
+
+    @Test
+    void lodFilter() throws IOException {
+        CityJSONTypeAdapterFactory factory = new CityJSONTypeAdapterFactory()
+                .withLoDFilter(new CityObjectLoDFilter().withLoDs(1));
+
+        read(factory, cityJSON -> {
+            for (AbstractCityObjectType cityObject : cityJSON.getCityObjects()) {
+                for (AbstractGeometryType geometry : cityObject.getGeometry())
+                    assertEquals(1.0, ((AbstractGeometryObjectType) geometry).getLod().doubleValue());
+            }
+
+            assertEquals(1, cityJSON.getCityObject("b2").getGeometry().size());
+        });
+    }
+
+    private void assertCityObjects(CityJSONTypeAdapterFactory factory, String... gmlIds) throws IOException {
+        read(factory, cityJSON -> {
+            assertEquals(Arrays.asList(gmlIds), TestData.gmlIds(cityJSON.getCityObjects()));
+            assertEquals(gmlIds.length, cityJSON.getCityObjects().size());
+        });
+    }
+
+    private void read(CityJSONTypeAdapterFactory factory, Consumer<CityJSON> assertions) throws IOException {
+        // eager and lazy reading must agree on the accepted city objects
+        Gson gson = TestData.newGson(factory);
+        assertions.accept(gson.fromJson(TestData.read(TestData.SAMPLE), CityJSON.class));
+
+        Path file = TestData.copy(TestData.SAMPLE, tempDir);
+        try (CityJSONInput input = new CityJSONInput(file).withLazyCityObjects(true)) {
+            assertions.accept(input.read(gson));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelWriteTest {
+    private static final int BUILDINGS = 3000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelOutputIsByteIdentical() {
+        Gson sequential = TestData.newGson();
+        Gson parallel = TestData.newGson(new CityJSONTypeAdapterFactory().writeCityObjectsInParallel(true));
+
+        CityJSON cityJSON = sequential.fromJson(TestData.generate(BUILDINGS), CityJSON.class);
+        assertEquals(sequential.toJson(cityJSON), parallel.toJson(cityJSON));
+    }
+
+    @Test
+    void parallelReadingKeepsCityObjects() throws IOException {
+        Gson sequential = TestData.newGson();
+        Gson parallel = TestData.newGson(new CityJSONTypeAdapterFactory().readCityObjectsInParallel(true));
+
+        String json = sequential.toJson(sequential.fromJson(TestData.generate(BUILDINGS), CityJSON.class));
+        Path file = TestData.write(json, tempDir.resolve("generated.city.json"));
+        try (CityJSONInput input = new CityJSONInput(file)) {
+            assertEquals(json, sequential.toJson(input.read(parallel)));
+        }
+    }
+
+    @Test
+    void cityJSONWriterSpillsVertices() throws IOException {
+        Gson gson = TestData.newGson();
+        CityJSON cityJSON = gson.fromJson(TestData.generate(BUILDINGS), CityJSON.class);
+
+        StringWriter output = new StringWriter();
+        try (CityJSONWriter writer = new CityJSONWriter(output, gson)
+                .withTemporaryDirectory(tempDir)
+                .withVerticesBufferSize(1000)) {
+            writer.writeStartDocument(new CityJSON());
+            for (AbstractCityObjectType cityObject : cityJSON.getCityObjects())
+                writer.writeCityObject(cityObject);
+
+            writer.addVertices(cityJSON.getVerticesList());
+            writer.writeEndDocument();
+        }
+
+        assertEquals(JsonParser.parseString(gson.toJson(cityJSON)), JsonParser.parseString(output.toString()));
+    }
+}
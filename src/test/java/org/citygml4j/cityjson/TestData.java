@@ -0,0 +1,132 @@
+/*
+ * citygson - A Gson based library for parsing and serializing CityJSON
+ * https://github.com/citygml4j/citygson
+ *
+ * citygson is part of the citygml4j project
+ *
+ * Copyright 2018-2024 Claus Nagel <claus.nagel@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.citygml4j.cityjson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import org.citygml4j.cityjson.feature.AbstractCityObjectType;
+import org.citygml4j.cityjson.geometry.VerticesList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class TestData {
+    static final String SAMPLE = "sample.city.json";
+    static final String SAMPLE_EXPECTED = "sample.expected.json";
+
+    private TestData() {
+    }
+
+    static Gson newGson() {
+        return newGson(new CityJSONTypeAdapterFactory());
+    }
+
+    static Gson newGson(CityJSONTypeAdapterFactory factory) {
+        return new GsonBuilder().registerTypeAdapterFactory(factory).create();
+    }
+
+    static String read(String name) {
+        try (InputStream stream = TestData.class.getResourceAsStream(name)) {
+            if (stream == null)
+                throw new IllegalArgumentException("Missing test resource " + name + ".");
+
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Path copy(String name, Path dir) throws IOException {
+        return write(read(name), dir.resolve(name));
+    }
+
+    static Path write(String json, Path file) throws IOException {
+        return Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String generate(int buildings) {
+        // one cube per building so that the vertices span several parallel chunks
+        StringBuilder json = new StringBuilder("{\"type\":\"CityJSON\",\"version\":\"1.0\",\"CityObjects\":{");
+        for (int i = 0; i < buildings; i++) {
+            int offset = i * 8;
+            json.append(i > 0 ? "," : "").append("\"b").append(i).append("\":{\"type\":\"Building\",")
+                    .append("\"attributes\":{\"measuredHeight\":").append(i % 20 + 0.5)
+                    .append(",\"function\":\"").append(i % 3 == 0 ? "office" : "residential").append("\"},")
+                    .append("\"geometry\":[{\"type\":\"Solid\",\"lod\":2,\"boundaries\":[[");
+            int[][] faces = {{0, 3, 2, 1}, {4, 5, 6, 7}, {0, 1, 5, 4}, {1, 2, 6, 5}, {2, 3, 7, 6}, {3, 0, 4, 7}};
+            for (int j = 0; j < faces.length; j++) {
+                json.append(j > 0 ? "," : "").append("[[");
+                for (int k = 0; k < 4; k++)
+                    json.append(k > 0 ? "," : "").append(offset + faces[j][k]);
+
+                json.append("]]");
+            }
+
+            json.append("]]}]}");
+        }
+
+        json.append("},\"vertices\":[");
+        for (int i = 0; i < buildings; i++) {
+            double x = i % 100 * 20.0, y = i / 100 * 20.0;
+            for (int k = 0; k < 8; k++) {
+                json.append(i > 0 || k > 0 ? "," : "")
+                        .append('[').append(x + (k == 1 || k == 2 || k == 5 || k == 6 ? 10.5 : 0))
+                        .append(',').append(y + (k == 2 || k == 3 || k == 6 || k == 7 ? 10.25 : 0))
+                        .append(',').append(k < 4 ? 0.0 : 12.125).append(']');
+            }
+        }
+
+        return json.append("]}").toString();
+    }
+
+    static List<String> gmlIds(Iterable<AbstractCityObjectType> cityObjects) {
+        List<String> gmlIds = new ArrayList<>();
+        for (AbstractCityObjectType cityObject : cityObjects)
+            gmlIds.add(cityObject.getGmlId());
+
+        return gmlIds;
+    }
+
+    static List<List<Double>> coordinates(AbstractCityObjectType cityObject, VerticesList vertices) {
+        // resolve the vertex indices so that city objects can be compared across vertex arrays
+        List<List<Double>> coordinates = new ArrayList<>();
+        cityObject.forEachVertexIndex(index -> coordinates.add(Arrays.asList(
+                vertices.getWorldX(index), vertices.getWorldY(index), vertices.getWorldZ(index))));
+
+        return coordinates;
+    }
+
+    static JsonObject withoutGeometry(AbstractCityObjectType cityObject, Gson gson) {
+        JsonObject object = gson.toJsonTree(cityObject, AbstractCityObjectType.class).getAsJsonObject();
+        object.remove("geometry");
+        return object;
+    }
+}